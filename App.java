@@ -1,20 +1,65 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import javax.swing.*;
 
 public class App {
+    static final int BOARD_WIDTH = 1000;
+    static final int BOARD_HEIGHT = 700;
+
     public static void main(String[] args) {
-        int boardWidth = 1000;
-        int boardHeight = 700;
+        if (args.length >= 2 && args[0].equals("arena")) {
+            arena(BOARD_WIDTH, BOARD_HEIGHT, args);
+            return;
+        }
+
+        createSnake(BOARD_WIDTH, BOARD_HEIGHT, args, JFrame.EXIT_ON_CLOSE);
+    }
 
+    /** Opens a Snake window; the launcher handles its closing itself. */
+    static SnakeGame createSnake(int boardWidth, int boardHeight, String[] args, int closeOperation) {
         JFrame frame = new JFrame("Snake");
         frame.setVisible(true);
         frame.setSize(boardWidth, boardHeight);
         frame.setLocationRelativeTo(null);
         frame.setResizable(false);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(closeOperation);
 
-        SnakeGame snakeGame = new SnakeGame(boardWidth, boardHeight);
+        // Optional world size in cells, e.g. "10000 10000"; larger than the window scrolls
+        SnakeGame snakeGame = args.length == 2
+                ? new SnakeGame(boardWidth, boardHeight, Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                        SnakeGame.DEFAULT_TICK_NANOS)
+                : new SnakeGame(boardWidth, boardHeight);
         frame.add(snakeGame);
         frame.pack();
         snakeGame.requestFocus();
+        return snakeGame;
+    }
+
+    // "arena <snakes> [columns rows] [replayed]": computer snakes sharing one board, the
+    // first <replayed> of them steered by the turns of the last saved Snake game
+    private static void arena(int boardWidth, int boardHeight, String[] args) {
+        int snakes = Integer.parseInt(args[1]);
+        boolean sized = args.length >= 4;
+        int columns = sized ? Integer.parseInt(args[2]) : 200;
+        int rows = sized ? Integer.parseInt(args[3]) : 140;
+        int replayed = args.length == 3 || args.length == 5 ? Integer.parseInt(args[args.length - 1]) : 0;
+        SnakeArena arena = new SnakeArena(columns, rows, snakes, snakes, System.nanoTime());
+        if (replayed > 0) {
+            try {
+                SnakeRecording recording = SnakeRecording.read(Paths.get(SnakeGame.REPLAY_FILE));
+                for (int i = 0; i < Math.min(replayed, snakes); i++) {
+                    arena.setController(i, SnakeArena.replay(recording));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        JFrame frame = new JFrame("Snake Arena");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.add(new SnakeArenaView(boardWidth, boardHeight, arena));
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,289 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Frame-Stewart solver for Tower of Hanoi with 3 or more pegs.
+ *
+ * To move n disks with p pegs: park the top k disks on a free peg using all p
+ * pegs, move the remaining n - k with p - 1 pegs, then bring the k disks back
+ * on top. The best k per (n, p) comes from a DP table shared by every solver.
+ * Because sub-solution lengths are known up front, each subproblem writes to a
+ * fixed range of a move buffer, so independent ranges are generated in
+ * parallel on a ForkJoinPool. Moves are packed one per byte as
+ * {@code (from << 4) | to}.
+ */
+public class FrameStewartSolver implements HanoiMoveSource {
+    public static final int MAX_PEGS = 16;
+    public static final int MAX_DISKS = 64;
+
+    private static final long PARALLEL_THRESHOLD = 1 << 12;
+    private static final long BLOCK_MOVES = 1 << 16;
+    private static final int WINDOW_BLOCKS = 4 * Runtime.getRuntime().availableProcessors();
+
+    // cost[p][n] and split[p][n], filled lazily up to the highest peg count requested
+    private static final long[][] cost = new long[MAX_PEGS + 1][];
+    private static final int[][] split = new int[MAX_PEGS + 1][];
+
+    private final ForkJoinPool pool;
+    private final int numDisks;
+    private final int numPegs;
+    private final int fromPeg;
+    private final int toPeg;
+    private final long[][] costRows;
+    private final int[][] splitRows;
+    private final long totalMoves;
+
+    // Streaming state
+    private final ArrayDeque<int[]> pending = new ArrayDeque<>();
+    private final ArrayDeque<Block> window = new ArrayDeque<>();
+    private byte[] current;
+    private int index;
+    private int from = -1;
+    private int to = -1;
+
+    private static final class Block {
+        final byte[] moves;
+        final ForkJoinTask<?> task;
+
+        Block(byte[] moves, ForkJoinTask<?> task) {
+            this.moves = moves;
+            this.task = task;
+        }
+    }
+
+    public FrameStewartSolver(int numDisks, int numPegs, int from, int to) {
+        this(numDisks, numPegs, from, to, ForkJoinPool.commonPool());
+    }
+
+    public FrameStewartSolver(int numDisks, int numPegs, int from, int to, ForkJoinPool pool) {
+        if (numPegs < 3 || numPegs > MAX_PEGS) {
+            throw new IllegalArgumentException("numPegs must be between 3 and " + MAX_PEGS);
+        }
+        if (numDisks < 0 || numDisks > MAX_DISKS) {
+            throw new IllegalArgumentException("numDisks must be between 0 and " + MAX_DISKS);
+        }
+        if (from == to || from < 0 || to < 0 || from >= numPegs || to >= numPegs) {
+            throw new IllegalArgumentException("Invalid source or target peg");
+        }
+        this.pool = pool;
+        this.numDisks = numDisks;
+        this.numPegs = numPegs;
+        this.fromPeg = from;
+        this.toPeg = to;
+        this.costRows = new long[numPegs + 1][];
+        this.splitRows = new int[numPegs + 1][];
+        for (int p = 2; p <= numPegs; p++) {
+            costRows[p] = costRow(p);
+            splitRows[p] = splitRow(p);
+        }
+        this.totalMoves = costRows[numPegs][numDisks];
+        if (totalMoves == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Solution for " + numDisks + " disks on " + numPegs + " pegs is too long");
+        }
+        pending.push(new int[] {numDisks, from, to, (1 << numPegs) - 1});
+    }
+
+    /** Minimum number of moves per Frame-Stewart, saturating at Long.MAX_VALUE. */
+    public static long minMoves(int numDisks, int numPegs) {
+        return costRow(numPegs)[numDisks];
+    }
+
+    /** Number of disks parked on an intermediate peg in the first phase. */
+    public static int splitPoint(int numDisks, int numPegs) {
+        return splitRow(numPegs)[numDisks];
+    }
+
+    private static synchronized long[] costRow(int pegs) {
+        fillTable(pegs);
+        return cost[pegs];
+    }
+
+    private static synchronized int[] splitRow(int pegs) {
+        fillTable(pegs);
+        return split[pegs];
+    }
+
+    private static void fillTable(int pegs) {
+        if (cost[pegs] != null) {
+            return;
+        }
+        if (cost[2] == null) {
+            // Two pegs can only carry a single disk
+            cost[2] = new long[MAX_DISKS + 1];
+            split[2] = new int[MAX_DISKS + 1];
+            Arrays.fill(cost[2], 2, MAX_DISKS + 1, Long.MAX_VALUE);
+            cost[2][1] = 1;
+        }
+        for (int p = 3; p <= pegs; p++) {
+            if (cost[p] != null) {
+                continue;
+            }
+            long[] c = new long[MAX_DISKS + 1];
+            int[] s = new int[MAX_DISKS + 1];
+            c[1] = 1;
+            for (int n = 2; n <= MAX_DISKS; n++) {
+                long best = Long.MAX_VALUE;
+                for (int k = 1; k < n; k++) {
+                    long moves = saturatingAdd(saturatingAdd(c[k], c[k]), cost[p - 1][n - k]);
+                    if (moves < best) {
+                        best = moves;
+                        s[n] = k;
+                    }
+                }
+                c[n] = best;
+            }
+            split[p] = s;
+            cost[p] = c;
+        }
+    }
+
+    private static long saturatingAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    public int getNumDisks() {
+        return numDisks;
+    }
+
+    public int getNumPegs() {
+        return numPegs;
+    }
+
+    public long getTotalMoves() {
+        return totalMoves;
+    }
+
+    public static int moveFrom(byte move) {
+        return (move >> 4) & 0xF;
+    }
+
+    public static int moveTo(byte move) {
+        return move & 0xF;
+    }
+
+    /** Generates the whole solution in parallel into a packed buffer. */
+    public byte[] solveAll() {
+        if (totalMoves > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Solution is too long to hold in one array; stream it instead");
+        }
+        byte[] out = new byte[(int) totalMoves];
+        pool.invoke(new SolveTask(out, 0, numDisks, fromPeg, toPeg, (1 << numPegs) - 1));
+        return out;
+    }
+
+    /** Advances to the next move; read it with {@link #from()} and {@link #to()}. */
+    @Override
+    public boolean advance() {
+        while (current == null || index == current.length) {
+            fillWindow();
+            Block block = window.poll();
+            if (block == null) {
+                current = null;
+                return false;
+            }
+            block.task.join();
+            current = block.moves;
+            index = 0;
+        }
+        byte move = current[index++];
+        from = moveFrom(move);
+        to = moveTo(move);
+        return true;
+    }
+
+    @Override
+    public int from() {
+        return from;
+    }
+
+    @Override
+    public int to() {
+        return to;
+    }
+
+    // Splits the remaining work into in-order blocks and keeps a bounded number generating ahead
+    private void fillWindow() {
+        while (window.size() < WINDOW_BLOCKS && !pending.isEmpty()) {
+            int[] frame = pending.pop();
+            int n = frame[0];
+            int src = frame[1];
+            int dst = frame[2];
+            int mask = frame[3];
+            int pegs = Integer.bitCount(mask);
+            long moves = costRows[pegs][n];
+            if (moves == 0) {
+                continue;
+            }
+            if (moves <= BLOCK_MOVES) {
+                byte[] out = new byte[(int) moves];
+                window.add(new Block(out, pool.submit(new SolveTask(out, 0, n, src, dst, mask))));
+                continue;
+            }
+            int k = splitRows[pegs][n];
+            int inter = intermediatePeg(mask, src, dst);
+            pending.push(new int[] {k, inter, dst, mask});
+            pending.push(new int[] {n - k, src, dst, mask & ~(1 << inter)});
+            pending.push(new int[] {k, src, inter, mask});
+        }
+    }
+
+    private static int intermediatePeg(int mask, int src, int dst) {
+        return Integer.numberOfTrailingZeros(mask & ~(1 << src) & ~(1 << dst));
+    }
+
+    private int solveSequential(byte[] out, int offset, int n, int src, int dst, int mask) {
+        if (n == 0) {
+            return offset;
+        }
+        if (n == 1) {
+            out[offset] = (byte) ((src << 4) | dst);
+            return offset + 1;
+        }
+        int pegs = Integer.bitCount(mask);
+        int k = splitRows[pegs][n];
+        int inter = intermediatePeg(mask, src, dst);
+        offset = solveSequential(out, offset, k, src, inter, mask);
+        offset = solveSequential(out, offset, n - k, src, dst, mask & ~(1 << inter));
+        return solveSequential(out, offset, k, inter, dst, mask);
+    }
+
+    @SuppressWarnings("serial")
+    private final class SolveTask extends RecursiveAction {
+        private final byte[] out;
+        private final int offset;
+        private final int n;
+        private final int src;
+        private final int dst;
+        private final int mask;
+
+        SolveTask(byte[] out, int offset, int n, int src, int dst, int mask) {
+            this.out = out;
+            this.offset = offset;
+            this.n = n;
+            this.src = src;
+            this.dst = dst;
+            this.mask = mask;
+        }
+
+        @Override
+        protected void compute() {
+            int pegs = Integer.bitCount(mask);
+            if (n <= 1 || costRows[pegs][n] <= PARALLEL_THRESHOLD) {
+                solveSequential(out, offset, n, src, dst, mask);
+                return;
+            }
+            int k = splitRows[pegs][n];
+            int inter = intermediatePeg(mask, src, dst);
+            int reduced = mask & ~(1 << inter);
+            int middle = offset + (int) costRows[pegs][k];
+            int last = middle + (int) costRows[pegs - 1][n - k];
+            invokeAll(new SolveTask(out, offset, k, src, inter, mask),
+                    new SolveTask(out, middle, n - k, src, dst, reduced),
+                    new SolveTask(out, last, k, inter, dst, mask));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Set of empty grid cells supporting O(1) insert, remove and uniform sampling.
+ * The free cells are kept densely packed at the front of {@code cells}, and
+ * {@code position} maps each cell back to its slot so removal is a swap with
+ * the last free entry.
+ */
+public class FreeCellIndex {
+    private final int[] cells;
+    private final int[] position;
+    private int count;
+
+    /** Starts with every cell free. */
+    public FreeCellIndex(int gridCells) {
+        cells = new int[gridCells];
+        position = new int[gridCells];
+        reset();
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+            position[i] = i;
+        }
+        count = cells.length;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean contains(int cell) {
+        return position[cell] < count;
+    }
+
+    /** The i-th free cell, for 0 <= i < size(); pass a uniform random i to sample. */
+    public int get(int i) {
+        return cells[i];
+    }
+
+    public void remove(int cell) {
+        int slot = position[cell];
+        if (slot >= count) {
+            return;
+        }
+        count--;
+        swap(slot, count);
+    }
+
+    public void add(int cell) {
+        int slot = position[cell];
+        if (slot < count) {
+            return;
+        }
+        swap(slot, count);
+        count++;
+    }
+
+    private void swap(int a, int b) {
+        int cellA = cells[a];
+        int cellB = cells[b];
+        cells[a] = cellB;
+        cells[b] = cellA;
+        position[cellB] = a;
+        position[cellA] = b;
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+
+/**
+ * Viewer for a {@link GameServer}: keeps a local copy of the game by applying
+ * the server's snapshots and deltas, and prints it once a second.
+ *
+ * <pre>
+ * java GameClient [port]
+ * </pre>
+ */
+public class GameClient {
+    private final DataInputStream in;
+
+    // Snake mirror
+    private SnakeBody snake;
+    private int columns;
+    private int rows;
+    private int food = -1;
+    private long ticks;
+    private boolean over;
+
+    // Hanoi mirror
+    private HanoiBoard board;
+    private long moves;
+
+    private long snapshots;
+    private long messages;
+
+    public GameClient(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    public SnakeBody getSnake() {
+        return snake;
+    }
+
+    public int getFood() {
+        return food;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    public HanoiBoard getBoard() {
+        return board;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    /** Reads and applies one message; throws EOFException when the server goes away. */
+    public void read() throws IOException {
+        int type = in.readUnsignedByte();
+        messages++;
+        if ((type & GameServer.SNAKE_STEP) != 0) {
+            step(type & 3, (type & GameServer.STEP_GROWS) != 0);
+            return;
+        }
+        switch (type) {
+            case GameServer.SNAKE_SNAPSHOT: {
+                int newColumns = (int) varint();
+                int newRows = (int) varint();
+                ticks = varint();
+                food = (int) varint() - 1;
+                int length = (int) varint();
+                int[] body = new int[length];
+                for (int i = 0; i < length; i++) {
+                    body[i] = (int) varint();
+                }
+                // Only rebuild the grid when the board changes
+                if (snake == null || newColumns != columns || newRows != rows) {
+                    columns = newColumns;
+                    rows = newRows;
+                    snake = new SnakeBody(columns, rows);
+                }
+                snake.clear();
+                for (int i = length - 1; i >= 0; i--) {
+                    snake.addHead(body[i]);
+                }
+                over = false;
+                board = null;
+                snapshots++;
+                break;
+            }
+            case GameServer.SNAKE_FOOD:
+                food = (int) varint() - 1;
+                break;
+            case GameServer.SNAKE_OVER:
+                over = true;
+                break;
+            case GameServer.HANOI_SNAPSHOT: {
+                int rods = (int) varint();
+                int disks = (int) varint();
+                moves = varint();
+                long[] masks = new long[rods];
+                for (int rod = 0; rod < rods; rod++) {
+                    masks[rod] = varint();
+                }
+                board = new HanoiBoard(rods, disks);
+                board.setRodMasks(masks);
+                snake = null;
+                snapshots++;
+                break;
+            }
+            case GameServer.HANOI_MOVE: {
+                int move = in.readUnsignedByte();
+                if (!board.tryMove(move >> 4, move & 15)) {
+                    throw new IOException("Illegal move " + (move >> 4) + " -> " + (move & 15));
+                }
+                moves++;
+                break;
+            }
+            default:
+                throw new IOException("Unknown message type " + type);
+        }
+    }
+
+    private void step(int direction, boolean grows) throws IOException {
+        int head = snake.head();
+        int next = head + SnakeInputQueue.dy(direction) * columns + SnakeInputQueue.dx(direction);
+        if (!grows) {
+            snake.removeTail();
+        }
+        if (snake.isOccupied(next)) {
+            throw new IOException("Snake stepped onto itself at tick " + ticks);
+        }
+        snake.addHead(next);
+        ticks++;
+    }
+
+    private long varint() throws IOException {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    private String describe() {
+        if (snake != null) {
+            return "snake tick " + ticks + ", length " + snake.length() + ", head " + snake.head() % columns
+                    + "," + snake.head() / columns + (over ? ", game over" : "");
+        }
+        if (board != null) {
+            StringBuilder rods = new StringBuilder();
+            for (int rod = 0; rod < board.getNumRods(); rod++) {
+                rods.append(rod == 0 ? "" : " ").append(board.size(rod));
+            }
+            return "hanoi move " + moves + ", disks per rod " + rods;
+        }
+        return "waiting for a snapshot";
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length == 1 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        try (Socket socket = new Socket("localhost", port)) {
+            GameClient client = new GameClient(socket.getInputStream());
+            long nextReport = System.nanoTime();
+            while (true) {
+                try {
+                    client.read();
+                } catch (EOFException e) {
+                    System.out.println("Server closed the connection");
+                    return;
+                }
+                if (System.nanoTime() - nextReport >= 0) {
+                    System.out.println(client.describe() + " (" + client.messages + " messages, "
+                            + client.snapshots + " snapshots)");
+                    nextReport += 1_000_000_000L;
+                }
+            }
+        }
+    }
+}
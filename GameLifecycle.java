@@ -0,0 +1,227 @@
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.swing.JFrame;
+
+/**
+ * Owns the game windows opened from the launcher. A game is suspended while
+ * its window is minimised or in the background and resumed when it comes
+ * back, so hidden games use no timer ticks. Closing a window only hides it and
+ * parks the game in a pool of up to {@link #POOL_LIMIT} per kind, and the next
+ * launch of that kind shows it again instead of building a new one. A game
+ * that does not fit in the pool, and every game at {@link #releaseAll}, is
+ * released: its timers are stopped, its cached images dropped and its window
+ * disposed.
+ *
+ * Everything here runs on the Event Dispatch Thread.
+ */
+public final class GameLifecycle {
+    public static final int POOL_LIMIT = 1;
+
+    /** A game window the lifecycle can pause, reuse and tear down. */
+    public interface Managed {
+        Window getWindow();
+
+        /** Stops the game's timers while it cannot be seen. */
+        void suspend();
+
+        /** Undoes {@link #suspend}. */
+        void resume();
+
+        /** Called when a pooled game is shown again. */
+        void relaunch();
+
+        /**
+         * Stops timers and frees caches for good; the window is disposed
+         * afterwards, which may call it again through the window's own
+         * close handling, so later calls must do nothing.
+         */
+        void release();
+    }
+
+    private static final class Entry extends WindowAdapter {
+        final String kind;
+        final Managed game;
+        boolean suspended;
+
+        Entry(String kind, Managed game) {
+            this.kind = kind;
+            this.game = game;
+        }
+
+        @Override
+        public void windowIconified(WindowEvent e) {
+            suspend(this);
+        }
+
+        @Override
+        public void windowDeactivated(WindowEvent e) {
+            // The game's own dialogs take focus without hiding it
+            if (!isOwnedBy(e.getOppositeWindow(), game.getWindow())) {
+                suspend(this);
+            }
+        }
+
+        @Override
+        public void windowDeiconified(WindowEvent e) {
+            resume(this);
+        }
+
+        @Override
+        public void windowActivated(WindowEvent e) {
+            resume(this);
+        }
+
+        @Override
+        public void windowClosing(WindowEvent e) {
+            close(this);
+        }
+    }
+
+    private static final List<Entry> open = new ArrayList<>();
+    private static final Map<String, ArrayDeque<Entry>> pools = new HashMap<>();
+    private static int live;
+    private static int running;
+    private static int pooled;
+    private static long created;
+    private static long reused;
+    private static Runnable onChange;
+
+    private GameLifecycle() {
+    }
+
+    /** Shows a pooled game of this kind if there is one, or builds one with {@code factory}. */
+    public static void launch(String kind, Supplier<? extends Managed> factory) {
+        ArrayDeque<Entry> pool = pools.get(kind);
+        Entry entry = pool != null ? pool.poll() : null;
+        if (entry != null) {
+            pooled--;
+            reused++;
+            entry.game.relaunch();
+            entry.suspended = false;
+            running++;
+            entry.game.getWindow().setVisible(true);
+        } else {
+            entry = new Entry(kind, factory.get());
+            Window window = entry.game.getWindow();
+            if (window instanceof JFrame) {
+                ((JFrame) window).setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            }
+            window.addWindowListener(entry);
+            live++;
+            running++;
+            created++;
+        }
+        open.add(entry);
+        changed();
+    }
+
+    /** Releases every game, open or pooled. */
+    public static void releaseAll() {
+        for (Entry entry : new ArrayList<>(open)) {
+            open.remove(entry);
+            if (!entry.suspended) {
+                running--;
+            }
+            release(entry);
+        }
+        for (ArrayDeque<Entry> pool : pools.values()) {
+            Entry entry;
+            while ((entry = pool.poll()) != null) {
+                pooled--;
+                release(entry);
+            }
+        }
+        changed();
+    }
+
+    /** Called after any counter changes, on the EDT. */
+    public static void setOnChange(Runnable listener) {
+        onChange = listener;
+    }
+
+    /** Games built and not yet released, shown or pooled. */
+    public static int getLive() {
+        return live;
+    }
+
+    /** Games on screen and not suspended. */
+    public static int getRunning() {
+        return running;
+    }
+
+    public static int getPooled() {
+        return pooled;
+    }
+
+    public static long getCreated() {
+        return created;
+    }
+
+    public static long getReused() {
+        return reused;
+    }
+
+    private static void suspend(Entry entry) {
+        if (entry.suspended || !open.contains(entry)) {
+            return;
+        }
+        entry.suspended = true;
+        entry.game.suspend();
+        running--;
+        changed();
+    }
+
+    private static void resume(Entry entry) {
+        if (!entry.suspended || !open.contains(entry)) {
+            return;
+        }
+        entry.suspended = false;
+        entry.game.resume();
+        running++;
+        changed();
+    }
+
+    private static void close(Entry entry) {
+        suspend(entry);
+        open.remove(entry);
+        entry.game.getWindow().setVisible(false);
+        ArrayDeque<Entry> pool = pools.computeIfAbsent(entry.kind, k -> new ArrayDeque<>());
+        if (pool.size() < POOL_LIMIT) {
+            pool.add(entry);
+            pooled++;
+        } else {
+            release(entry);
+        }
+        changed();
+    }
+
+    private static void release(Entry entry) {
+        Window window = entry.game.getWindow();
+        window.removeWindowListener(entry);
+        entry.game.release();
+        window.dispose();
+        live--;
+    }
+
+    private static boolean isOwnedBy(Window window, Window owner) {
+        for (; window != null; window = window.getOwner()) {
+            if (window == owner) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void changed() {
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+}
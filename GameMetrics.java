@@ -0,0 +1,233 @@
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Latency and allocation figures for one game: how long each tick and each
+ * paint takes, how long an input waits until the next frame is painted, and
+ * how many bytes a tick allocates, read from the thread's allocation counter.
+ *
+ * Every hook is called on the EDT and starts with a check of one volatile
+ * flag, so a disabled instance costs a field read per call. When enabled
+ * the figures are shown by {@link #paintOverlay} and published over JMX as
+ * {@code HanoiTower:type=GameMetrics,name=<game>}; the MBean can also turn
+ * recording on and off. {@code -Dgame.metrics=true} enables it at startup.
+ */
+public class GameMetrics implements GameMetricsMBean {
+    public static final int OVERLAY_WIDTH = 340;
+    public static final int OVERLAY_HEIGHT = 76;
+
+    private static final Map<String, GameMetrics> GAMES = new HashMap<>();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+
+    private final LatencyHistogram tick = new LatencyHistogram();
+    private final LatencyHistogram paint = new LatencyHistogram();
+    private final LatencyHistogram inputToFrame = new LatencyHistogram();
+    private final LatencyHistogram tickAllocation = new LatencyHistogram();
+    private volatile boolean enabled = Boolean.getBoolean("game.metrics");
+
+    // Start stamps of the tick and paint in progress, and of the oldest unpainted input; 0 if none
+    private long tickStart;
+    private long tickAllocatedStart;
+    private long paintStart;
+    private long inputAt;
+
+    private GameMetrics() {
+    }
+
+    /** The metrics for a game, shared by all its windows and registered with JMX on first use. */
+    public static synchronized GameMetrics forGame(String name) {
+        GameMetrics metrics = GAMES.get(name);
+        if (metrics == null) {
+            metrics = new GameMetrics();
+            GAMES.put(name, metrics);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                        new ObjectName("HanoiTower:type=GameMetrics,name=" + ObjectName.quote(name)));
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+        return metrics;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    public void tickStarted() {
+        if (!enabled) {
+            return;
+        }
+        if (THREADS != null) {
+            tickAllocatedStart = THREADS.getCurrentThreadAllocatedBytes();
+        }
+        tickStart = System.nanoTime();
+    }
+
+    public void tickEnded() {
+        if (!enabled || tickStart == 0) {
+            return;
+        }
+        tick.record(System.nanoTime() - tickStart);
+        if (THREADS != null) {
+            tickAllocation.record(THREADS.getCurrentThreadAllocatedBytes() - tickAllocatedStart);
+        }
+        tickStart = 0;
+    }
+
+    public void paintStarted() {
+        if (enabled) {
+            paintStart = System.nanoTime();
+        }
+    }
+
+    /** Ends a paint; any input waiting since before it is now on screen. */
+    public void paintEnded() {
+        if (!enabled || paintStart == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        paint.record(now - paintStart);
+        paintStart = 0;
+        if (inputAt != 0) {
+            inputToFrame.record(now - inputAt);
+            inputAt = 0;
+        }
+    }
+
+    /** Marks a key or mouse event; only the first since the last paint counts. */
+    public void inputReceived() {
+        if (enabled && inputAt == 0) {
+            inputAt = System.nanoTime();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        if (!EventQueue.isDispatchThread()) {
+            EventQueue.invokeLater(() -> setEnabled(enabled));
+            return;
+        }
+        // Drop stamps left over from before, so nothing spans the gap
+        tickStart = 0;
+        paintStart = 0;
+        inputAt = 0;
+        this.enabled = enabled;
+    }
+
+    /** Area {@link #paintOverlay} draws into at (x, y). */
+    public static Rectangle overlayBounds(int x, int y, Rectangle out) {
+        out.setBounds(x, y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        return out;
+    }
+
+    /** Draws the current figures in a box at (x, y); nothing when disabled. */
+    public void paintOverlay(Graphics g, int x, int y) {
+        if (!enabled) {
+            return;
+        }
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(x, y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g.setColor(Color.white);
+        g.setFont(OVERLAY_FONT);
+        int line = y + 16;
+        g.drawString(latencyLine("tick ", tick), x + 6, line);
+        g.drawString(latencyLine("paint", paint), x + 6, line + 17);
+        g.drawString(latencyLine("input", inputToFrame), x + 6, line + 34);
+        g.drawString(String.format("alloc/tick mean %,.0f B  p99 %,d B", tickAllocation.getMean(),
+                tickAllocation.getValueAtPercentile(99)), x + 6, line + 51);
+    }
+
+    private static String latencyLine(String label, LatencyHistogram h) {
+        return String.format("%s p50 %7.1f p99 %7.1f max %8.1f us", label, h.getValueAtPercentile(50) / 1e3,
+                h.getValueAtPercentile(99) / 1e3, h.getMax() / 1e3);
+    }
+
+    @Override
+    public long getTickCount() {
+        return tick.getCount();
+    }
+
+    @Override
+    public double getTickMeanMicros() {
+        return tick.getMean() / 1e3;
+    }
+
+    @Override
+    public double getTickP99Micros() {
+        return tick.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getTickMaxMicros() {
+        return tick.getMax() / 1e3;
+    }
+
+    @Override
+    public double getPaintMeanMicros() {
+        return paint.getMean() / 1e3;
+    }
+
+    @Override
+    public double getPaintP99Micros() {
+        return paint.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getPaintMaxMicros() {
+        return paint.getMax() / 1e3;
+    }
+
+    @Override
+    public double getInputToFrameP50Micros() {
+        return inputToFrame.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getInputToFrameP99Micros() {
+        return inputToFrame.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getInputToFrameMaxMicros() {
+        return inputToFrame.getMax() / 1e3;
+    }
+
+    @Override
+    public double getTickAllocatedBytesMean() {
+        return tickAllocation.getMean();
+    }
+
+    @Override
+    public long getTickAllocatedBytesMax() {
+        return tickAllocation.getMax();
+    }
+
+    @Override
+    public void reset() {
+        // Histograms belong to the EDT
+        EventQueue.invokeLater(() -> {
+            tick.reset();
+            paint.reset();
+            inputToFrame.reset();
+            tickAllocation.reset();
+        });
+    }
+}
@@ -0,0 +1,33 @@
+/** JMX view of {@link GameMetrics}; times in microseconds. */
+public interface GameMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getTickCount();
+
+    double getTickMeanMicros();
+
+    double getTickP99Micros();
+
+    double getTickMaxMicros();
+
+    double getPaintMeanMicros();
+
+    double getPaintP99Micros();
+
+    double getPaintMaxMicros();
+
+    double getInputToFrameP50Micros();
+
+    double getInputToFrameP99Micros();
+
+    double getInputToFrameMaxMicros();
+
+    double getTickAllocatedBytesMean();
+
+    long getTickAllocatedBytesMax();
+
+    /** Clears all histograms. */
+    void reset();
+}
@@ -4,45 +4,87 @@ import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
-
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JFrame;
+
+/**
+ * Launcher window. It is shown before the thumbnails are decoded: they load
+ * from the classpath on a background thread and each canvas keeps a copy
+ * scaled to its current size, so a repaint is a single unscaled blit and the
+ * image is rescaled only when the canvas is resized. The games themselves are
+ * loaded on the first click.
+ */
 public class GameSelector extends Frame {
-    private Panel leftPanel, rightPanel,maiPanel;
+    private Panel leftPanel, rightPanel;
     private Button hanoiButton, snakeButton;
-    private Canvas hanoiCanvas, snakeCanvas;
-    private BufferedImage hanoiImage, snakeImage;
+    private Thumbnail hanoiCanvas, snakeCanvas;
     private static final int BUTTON_HEIGHT = 50;
 
-    public GameSelector() {
-        setTitle("Game Selector");
-        setSize(1000,700);
-        setLayout(new GridLayout(1, 2));
+    /** Canvas drawing an image that arrives later, from a cache rebuilt only on resize. */
+    @SuppressWarnings("serial")
+    private static class Thumbnail extends Canvas {
+        // Where to draw; null fills the canvas above the button row
+        private final Rectangle fixedBounds;
+        private final Rectangle bounds = new Rectangle();
+        private BufferedImage image;
+        private Image scaled;
+
+        Thumbnail(Rectangle fixedBounds) {
+            this.fixedBounds = fixedBounds;
+        }
 
-        // Load images
-        try {
-            hanoiImage = ImageIO.read(new File("hanoi.png"));
-            snakeImage = ImageIO.read(new File("snake.png"));
-        } catch (IOException e) {
-            e.printStackTrace();
+        void setImage(BufferedImage image) {
+            this.image = image;
+            scaled = null;
+            repaint();
         }
 
-        // Create image canvases
-        hanoiCanvas = new Canvas() {
-            @Override
-            public void paint(Graphics g) {
-                if (hanoiImage != null) {
-                    g.drawImage(hanoiImage, 0, 0, getWidth(), getHeight() - BUTTON_HEIGHT, this);
-                }
-            }
-        };
+        @Override
+        public void update(Graphics g) {
+            // The cached image covers its area, so skip the clear and its flicker
+            paint(g);
+        }
 
-        snakeCanvas = new Canvas() {
-            @Override
-            public void paint(Graphics g) {
-                if (snakeImage != null) {
-                    g.drawImage(snakeImage, 150, 180, 300, 300 - BUTTON_HEIGHT, this);
-                }
+        @Override
+        public void paint(Graphics g) {
+            if (image == null) {
+                return;
+            }
+            int width = fixedBounds != null ? fixedBounds.width : getWidth();
+            int height = fixedBounds != null ? fixedBounds.height : getHeight() - BUTTON_HEIGHT;
+            if (width <= 0 || height <= 0) {
+                return;
             }
-        };
+            if (scaled == null || width != bounds.width || height != bounds.height) {
+                bounds.setBounds(fixedBounds != null ? fixedBounds.x : 0, fixedBounds != null ? fixedBounds.y : 0,
+                        width, height);
+                scaled = scale(image, width, height);
+            }
+            g.drawImage(scaled, bounds.x, bounds.y, null);
+        }
+
+        private Image scale(BufferedImage source, int width, int height) {
+            GraphicsConfiguration config = getGraphicsConfiguration();
+            Image result = config != null
+                    ? config.createCompatibleImage(width, height, source.getColorModel().getTransparency())
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = (Graphics2D) result.getGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+            g.dispose();
+            return result;
+        }
+    }
+
+    public GameSelector() {
+        setTitle("Game Selector");
+        setSize(1000,700);
+        setLayout(new GridLayout(1, 2));
+
+        // Create image canvases; their images load after the window is up
+        hanoiCanvas = new Thumbnail(null);
+        snakeCanvas = new Thumbnail(new Rectangle(150, 180, 300, 300 - BUTTON_HEIGHT));
         
         // Create panels
         leftPanel = new Panel();
@@ -58,14 +100,14 @@ public class GameSelector extends Frame {
         hanoiButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                new TowerOfHanoiGame();
+                launchHanoi();
             }
         });
 
         snakeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                App.main(new String[]{});
+                launchSnake();
             }
         });
 
@@ -73,14 +115,14 @@ public class GameSelector extends Frame {
         hanoiCanvas.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                new TowerOfHanoiGame();
+                launchHanoi();
             }
         });
 
         snakeCanvas.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                App.main(new String[]{});
+                launchSnake();
             }
         });
 
@@ -112,14 +154,51 @@ public class GameSelector extends Frame {
         // Add window listener
         addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent we) {
+                GameLifecycle.releaseAll();
                 dispose();
                 System.exit(0);
             }
         });
 
+        GameLifecycle.setOnChange(this::showCounts);
+
         // Center the window
         setLocationRelativeTo(null);
         setVisible(true);
+
+        loadThumbnail("hanoi.png", hanoiCanvas);
+        loadThumbnail("snake.png", snakeCanvas);
+    }
+
+    // Game classes are only loaded from here, on first use; closed games are kept for the next launch
+    private void launchHanoi() {
+        GameLifecycle.launch("Hanoi", TowerOfHanoiGame::new);
+    }
+
+    private void launchSnake() {
+        GameLifecycle.launch("Snake", () -> App.createSnake(App.BOARD_WIDTH, App.BOARD_HEIGHT, new String[]{},
+                JFrame.DO_NOTHING_ON_CLOSE));
+    }
+
+    private void showCounts() {
+        setTitle("Game Selector (" + GameLifecycle.getRunning() + " running, "
+                + (GameLifecycle.getLive() - GameLifecycle.getRunning() - GameLifecycle.getPooled()) + " paused, "
+                + GameLifecycle.getPooled() + " closed and kept)");
+    }
+
+    private static void loadThumbnail(String name, Thumbnail canvas) {
+        CompletableFuture.supplyAsync(() -> readImage(name))
+                .thenAccept(image -> EventQueue.invokeLater(() -> canvas.setImage(image)));
+    }
+
+    // From the classpath, falling back to the working directory as before
+    private static BufferedImage readImage(String name) {
+        try (InputStream in = GameSelector.class.getResourceAsStream("/" + name)) {
+            return in != null ? ImageIO.read(in) : ImageIO.read(new File(name));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     private Button createStyledButton(String text) {
@@ -143,6 +222,6 @@ public class GameSelector extends Frame {
     }
 
     public static void main(String[] args) {
-        new GameSelector();
+        EventQueue.invokeLater(GameSelector::new);
     }
 }
\ No newline at end of file
@@ -0,0 +1,442 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Runs one Snake or Hanoi game on loopback and streams it to any number of
+ * viewers from a single thread: a non-blocking selector accepts and writes,
+ * and the game ticks between selects.
+ *
+ * A tick is encoded once and the same bytes are appended to every client's
+ * outbound buffer, so fan-out costs the frame size per client: one byte for
+ * a Snake step, two for a Hanoi move, a few more when food moves. A new
+ * client starts with a snapshot. A client whose buffer has not emptied for
+ * {@link #MAX_LAG_TICKS} ticks, or cannot take the next frame, stops
+ * receiving deltas; once the bytes it already has are written it is sent a
+ * fresh snapshot and continues from there, so a slow viewer skips ahead
+ * instead of holding up the others or growing a backlog.
+ *
+ * Messages are a type byte followed by unsigned varints:
+ * <pre>
+ * SNAKE_SNAPSHOT columns rows ticks food+1 length cell...   (body head first)
+ * SNAKE_FOOD     food+1
+ * SNAKE_OVER
+ * HANOI_SNAPSHOT rods disks moves mask...                  (one mask per rod)
+ * HANOI_MOVE     from &lt;&lt; 4 | to                           (a single byte)
+ * 1000 0gdd      Snake step: head moves in direction dd, g set if the tail stays
+ * </pre>
+ * A finished game restarts after {@link #RESTART_TICKS} ticks with a new
+ * snapshot. {@link GameClient} is a viewer.
+ *
+ * <pre>
+ * java GameServer &lt;snake|hanoi&gt; [port] [ticks per second]
+ * </pre>
+ */
+public class GameServer {
+    public static final int DEFAULT_PORT = 7373;
+    public static final int CLIENT_BUFFER = 16 * 1024;
+    public static final int RESTART_TICKS = 20;
+    public static final int MAX_LAG_TICKS = 100;
+
+    public static final int SNAKE_SNAPSHOT = 1;
+    public static final int SNAKE_FOOD = 2;
+    public static final int SNAKE_OVER = 3;
+    public static final int HANOI_SNAPSHOT = 4;
+    public static final int HANOI_MOVE = 5;
+    public static final int SNAKE_STEP = 0x80;
+    public static final int STEP_GROWS = 0x04;
+
+    /** A game the server can tick and describe. */
+    interface Game {
+        /** Advances one tick, writing what changed. */
+        void tick(Frame out);
+
+        /** Writes the whole current state. */
+        void snapshot(Frame out);
+    }
+
+    /** Growable byte buffer for encoding messages. */
+    static final class Frame {
+        private byte[] data = new byte[256];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void put(int b) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = (byte) b;
+        }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                put((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            put((int) v);
+        }
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        final SelectionKey key;
+        ByteBuffer out = ByteBuffer.allocate(CLIENT_BUFFER);
+        boolean stale = true;
+        long drainedTick;
+
+        Client(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    private final Game game;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Client> clients = new ArrayList<>();
+    private final ByteBuffer readScratch = ByteBuffer.allocate(256);
+    private final Frame frame = new Frame();
+    private final Frame snapshot = new Frame();
+    private long snapshotTick = -1;
+    private long ticks;
+    private long snapshotsSent;
+    private long bytesQueued;
+
+    public GameServer(Game game, int port) throws IOException {
+        this.game = game;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    public long getBytesQueued() {
+        return bytesQueued;
+    }
+
+    /** Serves until the thread is interrupted. */
+    public void run(long tickNanos) throws IOException {
+        long nextTick = System.nanoTime();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long wait = nextTick - System.nanoTime();
+                poll(wait > 0 ? Math.max(1, wait / 1_000_000) : 0);
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    // A stalled server drops the backlog rather than bursting to catch up
+                    nextTick = Math.max(nextTick + tickNanos, now - tickNanos);
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /** Handles ready channels, waiting up to {@code millis} (0 = do not wait). */
+    void poll(long millis) throws IOException {
+        if (millis > 0) {
+            selector.select(millis);
+        } else {
+            selector.selectNow();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isReadable() && client.channel.read(readScratch.clear()) < 0) {
+                    disconnect(client);
+                    continue;
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(client);
+                }
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    /** Advances the game and sends the tick to every client. */
+    void tick() {
+        frame.clear();
+        game.tick(frame);
+        ticks++;
+        if (frame.size() == 0) {
+            return;
+        }
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (client.stale) {
+                continue;
+            }
+            if (client.out.remaining() < frame.size() || ticks - client.drainedTick > MAX_LAG_TICKS) {
+                // Too far behind: let it drain, then catch up from a snapshot
+                client.stale = true;
+            } else {
+                client.out.put(frame.data, 0, frame.size());
+                bytesQueued += frame.size();
+            }
+            // Also queues the snapshot at once if a stale client has nothing left to drain
+            try {
+                flush(client);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            register(channel);
+        }
+    }
+
+    private void register(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        // Keep the backlog in our buffer, where it can be skipped, not the kernel's
+        channel.socket().setSendBufferSize(CLIENT_BUFFER);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Client client = new Client(channel, key);
+        key.attach(client);
+        clients.add(client);
+        try {
+            flush(client);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    // Writes what the socket takes; a stale client gets its snapshot once empty
+    private void flush(Client client) throws IOException {
+        ByteBuffer out = client.out;
+        while (true) {
+            out.flip();
+            client.channel.write(out);
+            out.compact();
+            if (out.position() > 0) {
+                break;
+            }
+            client.drainedTick = ticks;
+            if (!client.stale) {
+                break;
+            }
+            Frame s = currentSnapshot();
+            if (s.size() > out.capacity()) {
+                out = ByteBuffer.allocate(s.size() + CLIENT_BUFFER);
+                client.out = out;
+            }
+            out.put(s.data, 0, s.size());
+            bytesQueued += s.size();
+            snapshotsSent++;
+            client.stale = false;
+        }
+        client.key.interestOps(out.position() > 0
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    // Encoded at most once per tick however many clients need it
+    private Frame currentSnapshot() {
+        if (snapshotTick != ticks) {
+            snapshot.clear();
+            game.snapshot(snapshot);
+            snapshotTick = ticks;
+        }
+        return snapshot;
+    }
+
+    private void disconnect(Client client) {
+        clients.remove(client);
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void close() throws IOException {
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            disconnect(clients.get(i));
+        }
+        server.close();
+        selector.close();
+    }
+
+    /** Autopilot Snake, restarting with a new seed after each game. */
+    static final class SnakeFeed implements Game, SnakeEngine.Listener {
+        private final SnakeEngine engine;
+        private final SplittableRandom seeds;
+        private Frame out;
+        private int restartIn;
+
+        SnakeFeed(int columns, int rows, long seed) {
+            seeds = new SplittableRandom(seed);
+            engine = new SnakeEngine(columns, rows, new SnakeRandom(seeds.nextLong()));
+            engine.setController(new SnakeAutopilot(engine));
+            engine.setListener(this);
+        }
+
+        SnakeEngine getEngine() {
+            return engine;
+        }
+
+        @Override
+        public void tick(Frame out) {
+            this.out = out;
+            if (!engine.isOver()) {
+                engine.tick();
+                if (engine.isOver()) {
+                    out.put(SNAKE_OVER);
+                    restartIn = RESTART_TICKS;
+                }
+            } else if (--restartIn <= 0) {
+                engine.setListener(null);
+                engine.reset(new SnakeRandom(seeds.nextLong()));
+                engine.setListener(this);
+                snapshot(out);
+            }
+            this.out = null;
+        }
+
+        @Override
+        public void snapshot(Frame out) {
+            SnakeBody snake = engine.getSnake();
+            out.put(SNAKE_SNAPSHOT);
+            out.varint(engine.getColumns());
+            out.varint(engine.getRows());
+            out.varint(engine.getTicks());
+            out.varint(engine.getFood() + 1);
+            out.varint(snake.length());
+            for (int i = 0; i < snake.length(); i++) {
+                out.varint(snake.get(i));
+            }
+            if (engine.isOver()) {
+                out.put(SNAKE_OVER);
+            }
+        }
+
+        @Override
+        public void moved(int oldHead, int removedTail) {
+            out.put(SNAKE_STEP | (removedTail < 0 ? STEP_GROWS : 0) | engine.getDirection());
+        }
+
+        @Override
+        public void foodPlaced(int oldFood, int food) {
+            if (out != null) {
+                out.put(SNAKE_FOOD);
+                out.varint(food + 1);
+            }
+        }
+    }
+
+    /** The optimal solution played one move per tick, then again from the start. */
+    static final class HanoiFeed implements Game {
+        private final HanoiBoard board;
+        private final int numDisks;
+        private HanoiMoveSource solution;
+        private long moves;
+        private int restartIn;
+
+        HanoiFeed(int numRods, int numDisks) {
+            board = new HanoiBoard(numRods, numDisks);
+            this.numDisks = numDisks;
+            restart();
+        }
+
+        HanoiBoard getBoard() {
+            return board;
+        }
+
+        private void restart() {
+            board.reset(numDisks);
+            solution = new FrameStewartSolver(numDisks, board.getNumRods(), 0, board.getNumRods() - 1);
+            moves = 0;
+        }
+
+        @Override
+        public void tick(Frame out) {
+            if (restartIn > 0) {
+                if (--restartIn == 0) {
+                    restart();
+                    snapshot(out);
+                }
+            } else if (solution.advance()) {
+                board.move(solution.from(), solution.to());
+                moves++;
+                out.put(HANOI_MOVE);
+                out.put(solution.from() << 4 | solution.to());
+            } else {
+                restartIn = RESTART_TICKS;
+            }
+        }
+
+        @Override
+        public void snapshot(Frame out) {
+            out.put(HANOI_SNAPSHOT);
+            out.varint(board.getNumRods());
+            out.varint(board.getNumDisks());
+            out.varint(moves);
+            for (int rod = 0; rod < board.getNumRods(); rod++) {
+                out.varint(board.getRodMask(rod));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3 || !(args[0].equals("snake") || args[0].equals("hanoi"))) {
+            System.err.println("Usage: java GameServer <snake|hanoi> [port] [ticks per second]");
+            System.exit(2);
+        }
+        int port = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        double rate = args.length == 3 ? Double.parseDouble(args[2]) : 20;
+        Game game = args[0].equals("snake")
+                ? new SnakeFeed(40, 28, System.nanoTime())
+                : new HanoiFeed(3, 12);
+        GameServer server = new GameServer(game, port);
+        System.out.println("Serving " + args[0] + " on " + InetAddress.getLoopbackAddress().getHostAddress()
+                + ":" + server.getPort());
+        server.run((long) (1e9 / rate));
+    }
+}
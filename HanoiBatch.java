@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Headless entry point for generating and checking Hanoi solutions without
+ * opening the Swing window.
+ *
+ * <pre>
+ * java HanoiBatch solve &lt;disks&gt; &lt;file&gt; [pegs]
+ * java HanoiBatch verify &lt;file&gt;
+ * </pre>
+ */
+public class HanoiBatch {
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("solve")) {
+            int disks = Integer.parseInt(args[1]);
+            int pegs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+            solve(disks, pegs, Paths.get(args[2]));
+        } else if (args.length == 2 && args[0].equals("verify")) {
+            verify(Paths.get(args[1]));
+        } else {
+            System.err.println("Usage: java HanoiBatch solve <disks> <file> [pegs]");
+            System.err.println("       java HanoiBatch verify <file>");
+            System.exit(2);
+        }
+    }
+
+    private static void solve(int disks, int pegs, Path file) throws IOException {
+        long start = System.nanoTime();
+        HanoiMoveSource source;
+        long moveCount;
+        if (pegs == 3) {
+            HanoiMoveGenerator generator = new HanoiMoveGenerator(disks, 0, 2, 1);
+            source = generator;
+            moveCount = generator.getTotalMoves();
+        } else {
+            FrameStewartSolver solver = new FrameStewartSolver(disks, pegs, 0, pegs - 1);
+            source = solver;
+            moveCount = solver.getTotalMoves();
+        }
+        HanoiMoveFile.write(file, source, moveCount, disks, pegs, 0, pegs - 1);
+        report("Wrote", moveCount, Files.size(file), start);
+    }
+
+    private static void verify(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (HanoiMoveFile.Reader reader = new HanoiMoveFile.Reader(file)) {
+            HanoiBoard board = new HanoiBoard(reader.getNumPegs(), reader.getNumDisks());
+            long[] rods = new long[reader.getNumPegs()];
+            rods[reader.getFromPeg()] = HanoiBoard.fullMask(reader.getNumDisks());
+            board.setRodMasks(rods);
+            long count = 0;
+            while (reader.advance()) {
+                if (!board.tryMove(reader.from(), reader.to())) {
+                    System.err.println("Illegal move " + (count + 1) + ": " + reader.from() + " -> " + reader.to());
+                    System.exit(1);
+                }
+                count++;
+            }
+            if (!board.isSolved(reader.getToPeg())) {
+                System.err.println("Board not solved after " + count + " moves");
+                System.exit(1);
+            }
+            report("Verified", count, Files.size(file), start);
+        }
+    }
+
+    private static void report(String action, long moves, long bytes, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%s %,d moves (%,d bytes) in %.2f s: %,.0f moves/s, %.1f MB/s%n",
+                action, moves, bytes, seconds, moves / seconds, bytes / seconds / 1e6);
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * Primitive Tower of Hanoi state: one long bitmask per rod, bit (d - 1) set
+ * when disk d sits on that rod. Disk 1 is the smallest, so the top disk of a
+ * rod is its lowest set bit. Supports up to 64 disks with no allocation per
+ * move.
+ */
+public class HanoiBoard {
+    public static final int MAX_DISKS = 64;
+
+    private final long[] rods;
+    private int numDisks;
+
+    public HanoiBoard(int numRods, int numDisks) {
+        if (numRods < 3) {
+            throw new IllegalArgumentException("At least 3 rods are required");
+        }
+        this.rods = new long[numRods];
+        reset(numDisks);
+    }
+
+    /** Puts all disks back on rod 0. */
+    public void reset(int numDisks) {
+        if (numDisks < 0 || numDisks > MAX_DISKS) {
+            throw new IllegalArgumentException("numDisks must be between 0 and " + MAX_DISKS);
+        }
+        this.numDisks = numDisks;
+        Arrays.fill(rods, 0L);
+        rods[0] = fullMask(numDisks);
+    }
+
+    public static long fullMask(int numDisks) {
+        return numDisks == 64 ? -1L : (1L << numDisks) - 1;
+    }
+
+    public int getNumRods() {
+        return rods.length;
+    }
+
+    public int getNumDisks() {
+        return numDisks;
+    }
+
+    public long getRodMask(int rod) {
+        return rods[rod];
+    }
+
+    /** Replaces the whole configuration; the masks must partition the disks. */
+    public void setRodMasks(long[] masks) {
+        long seen = 0;
+        for (long mask : masks) {
+            if ((seen & mask) != 0) {
+                throw new IllegalArgumentException("Disk placed on more than one rod");
+            }
+            seen |= mask;
+        }
+        if (masks.length != rods.length || seen != fullMask(numDisks)) {
+            throw new IllegalArgumentException("Rod masks do not describe " + numDisks + " disks");
+        }
+        System.arraycopy(masks, 0, rods, 0, rods.length);
+    }
+
+    public boolean isEmpty(int rod) {
+        return rods[rod] == 0;
+    }
+
+    public int size(int rod) {
+        return Long.bitCount(rods[rod]);
+    }
+
+    /** Top (smallest) disk on the rod, or 0 if the rod is empty. */
+    public int topDisk(int rod) {
+        long mask = rods[rod];
+        return mask == 0 ? 0 : Long.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /** Rod holding the given disk, or -1 if the disk is not on the board. */
+    public int rodOf(int disk) {
+        long bit = 1L << (disk - 1);
+        for (int i = 0; i < rods.length; i++) {
+            if ((rods[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isValidMove(int from, int to) {
+        long src = rods[from];
+        long dst = rods[to];
+        return from != to && src != 0
+                && (dst == 0 || Long.numberOfTrailingZeros(src) < Long.numberOfTrailingZeros(dst));
+    }
+
+    /** Moves the top disk without checking legality. */
+    public void move(int from, int to) {
+        long top = rods[from] & -rods[from];
+        rods[from] ^= top;
+        rods[to] |= top;
+    }
+
+    public boolean tryMove(int from, int to) {
+        if (!isValidMove(from, to)) {
+            return false;
+        }
+        move(from, to);
+        return true;
+    }
+
+    public boolean isSolved(int targetRod) {
+        return rods[targetRod] == fullMask(numDisks);
+    }
+}
@@ -0,0 +1,331 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Move history for a Hanoi session with O(1) undo and redo.
+ *
+ * History lives in a power-of-two byte ring, one byte per move, so no objects
+ * are created per move; once the ring is full the oldest moves fall out of the
+ * undo range. A journal can also be backed by an append-only memory-mapped
+ * file of the same one-byte entries. Two alternating checkpoint slots in the
+ * file header hold the full board every {@link #CHECKPOINT_INTERVAL} entries,
+ * so resuming after a crash loads the last checkpoint and replays at most that
+ * many entries instead of the whole session. After a resume, undo reaches
+ * back as far as that checkpoint. A checkpoint also records the rule variant.
+ * {@link #reset} truncates the log, so the file only ever holds the current
+ * game's moves since its last reset.
+ *
+ * Entry byte: {@code op << 6 | from << 3 | to}, with op 1 = move, 2 = undo of
+ * that move, 3 = redo of it. A zero byte marks the end of the log. Rods are
+ * limited to {@link #MAX_RODS}.
+ */
+public class HanoiJournal implements AutoCloseable {
+    public static final int MAX_RODS = 8;
+    public static final int CHECKPOINT_INTERVAL = 4096;
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private static final int OP_MOVE = 1;
+    private static final int OP_UNDO = 2;
+    private static final int OP_REDO = 3;
+
+    private static final int MAGIC = 0x4C4E4A48;  // "HJNL" read little-endian
+    private static final int VERSION = 2;
+    private static final int SLOT_BYTES = 88;
+    private static final int HEADER_BYTES = 8 + 2 * SLOT_BYTES;
+    private static final long WINDOW_BYTES = 1 << 20;
+
+    private HanoiBoard board;
+    private HanoiVariant variant = HanoiVariant.CLASSIC;
+    private final byte[] ring;
+    private final int ringMask;
+    private long cursor;
+    private int undoDepth;
+    private int redoDepth;
+    private long moveCount;
+
+    // File backing; null for an in-memory journal
+    private final FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long end;
+    private int sinceCheckpoint;
+
+    /** In-memory journal remembering up to {@code capacity} moves (rounded up to a power of two). */
+    public HanoiJournal(int capacity) {
+        this(capacity, null);
+    }
+
+    private HanoiJournal(int capacity, FileChannel channel) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new byte[size];
+        this.ringMask = size - 1;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens or creates a file-backed journal. If the file already holds a
+     * session, the board is replaced by a new one matching the saved state,
+     * otherwise the given board becomes the first checkpoint. Use
+     * {@link #getBoard()} for the resulting board.
+     *
+     * The file stays locked until {@link #close()}; returns null if another
+     * journal, in this or another process, already has it open.
+     */
+    public static HanoiJournal open(Path path, HanoiBoard board) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        HanoiJournal journal = new HanoiJournal(DEFAULT_CAPACITY, channel);
+        try {
+            if (!lock(channel)) {
+                channel.close();
+                return null;
+            }
+            boolean existing = channel.size() >= HEADER_BYTES;
+            journal.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            journal.header.order(ByteOrder.LITTLE_ENDIAN);
+            if (existing && journal.header.getInt(0) == MAGIC && journal.header.get(4) == VERSION) {
+                journal.board = journal.resume();
+            } else {
+                journal.header.putInt(0, MAGIC);
+                journal.header.put(4, (byte) VERSION);
+                journal.end = HEADER_BYTES;
+                journal.board = board;
+                journal.writeCheckpoint();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    // Held locks are released when the channel closes
+    private static boolean lock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    /** Board the journal was opened against; a restored board after a resume. */
+    public HanoiBoard getBoard() {
+        return board;
+    }
+
+    /** Rules the session is played under; restored by a resume. */
+    public HanoiVariant getVariant() {
+        return variant;
+    }
+
+    /** Sets the rules saved with the next checkpoint. */
+    public void setVariant(HanoiVariant variant) {
+        this.variant = variant;
+    }
+
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    public boolean canUndo() {
+        return undoDepth > 0;
+    }
+
+    public boolean canRedo() {
+        return redoDepth > 0;
+    }
+
+    /** Records a move that has already been applied to the board. */
+    public void record(int from, int to) {
+        checkRods(from, to);
+        int move = (from << 3) | to;
+        ring[(int) (cursor & ringMask)] = (byte) move;
+        cursor++;
+        if (undoDepth < ring.length) {
+            undoDepth++;
+        }
+        redoDepth = 0;
+        moveCount++;
+        append(OP_MOVE, move);
+    }
+
+    /** Reverts the last move on the board; returns it packed as {@code from << 3 | to}, or -1. */
+    public int undo(HanoiBoard board) {
+        if (undoDepth == 0) {
+            return -1;
+        }
+        cursor--;
+        undoDepth--;
+        redoDepth++;
+        moveCount--;
+        int move = ring[(int) (cursor & ringMask)];
+        board.move(move & 7, (move >> 3) & 7);
+        append(OP_UNDO, move);
+        return move;
+    }
+
+    /** Re-applies the last undone move; returns it packed as {@code from << 3 | to}, or -1. */
+    public int redo(HanoiBoard board) {
+        if (redoDepth == 0) {
+            return -1;
+        }
+        int move = ring[(int) (cursor & ringMask)];
+        cursor++;
+        undoDepth++;
+        redoDepth--;
+        moveCount++;
+        board.move((move >> 3) & 7, move & 7);
+        append(OP_REDO, move);
+        return move;
+    }
+
+    /**
+     * Drops the undo history and checkpoints the board as is, for new games
+     * and for moves made outside the journal such as solver playback. The
+     * file is cut back to its header first, so a crash before the new
+     * checkpoint lands resumes from the old one without replaying stale moves.
+     */
+    public void reset(HanoiBoard board, long moveCount) {
+        this.board = board;
+        this.moveCount = moveCount;
+        undoDepth = 0;
+        redoDepth = 0;
+        if (channel != null) {
+            try {
+                window = null;
+                channel.truncate(HEADER_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to truncate journal", e);
+            }
+            end = HEADER_BYTES;
+            writeCheckpoint();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            writeCheckpoint();
+            // Drop the unused tail of the last mapped window
+            window = null;
+            channel.truncate(end);
+            channel.close();
+        }
+    }
+
+    private static void checkRods(int from, int to) {
+        if (from >= MAX_RODS || to >= MAX_RODS) {
+            throw new IllegalArgumentException("Journal supports at most " + MAX_RODS + " rods");
+        }
+    }
+
+    private void append(int op, int move) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (window == null || end - windowStart >= window.capacity()) {
+                windowStart = end;
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_BYTES);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to extend journal", e);
+        }
+        window.put((int) (end - windowStart), (byte) ((op << 6) | move));
+        end++;
+        if (++sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            writeCheckpoint();
+        }
+    }
+
+    // Fills the inactive slot, forces it to disk, then flips the active index
+    private void writeCheckpoint() {
+        int slot = 1 - header.get(5);
+        int base = 8 + slot * SLOT_BYTES;
+        header.putLong(base, end);
+        header.putLong(base + 8, moveCount);
+        header.put(base + 16, (byte) board.getNumRods());
+        header.put(base + 17, (byte) board.getNumDisks());
+        header.put(base + 18, (byte) variant.ordinal());
+        for (int i = 0; i < MAX_RODS; i++) {
+            header.putLong(base + 24 + i * 8, i < board.getNumRods() ? board.getRodMask(i) : 0L);
+        }
+        if (window != null) {
+            window.force();
+        }
+        header.force();
+        header.put(5, (byte) slot);
+        header.force();
+        sinceCheckpoint = 0;
+    }
+
+    private HanoiBoard resume() throws IOException {
+        int base = 8 + header.get(5) * SLOT_BYTES;
+        end = header.getLong(base);
+        moveCount = header.getLong(base + 8);
+        int rods = header.get(base + 16);
+        int disks = header.get(base + 17);
+        variant = HanoiVariant.values()[header.get(base + 18)];
+        HanoiBoard restored = new HanoiBoard(rods, disks);
+        long[] masks = new long[rods];
+        for (int i = 0; i < rods; i++) {
+            masks[i] = header.getLong(base + 24 + i * 8);
+        }
+        restored.setRodMasks(masks);
+
+        // Replay whatever was appended after the checkpoint
+        long size = channel.size();
+        while (end < size) {
+            if (window == null || end - windowStart >= window.capacity()) {
+                windowStart = end;
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_BYTES);
+            }
+            int entry = window.get((int) (end - windowStart)) & 0xFF;
+            if (entry == 0) {
+                break;
+            }
+            int move = entry & 0x3F;
+            int from = (move >> 3) & 7;
+            int to = move & 7;
+            switch (entry >> 6) {
+                case OP_MOVE:
+                    restored.move(from, to);
+                    ring[(int) (cursor++ & ringMask)] = (byte) move;
+                    undoDepth = Math.min(undoDepth + 1, ring.length);
+                    redoDepth = 0;
+                    moveCount++;
+                    break;
+                case OP_UNDO:
+                    restored.move(to, from);
+                    if (undoDepth > 0) {
+                        cursor--;
+                        undoDepth--;
+                        redoDepth++;
+                    }
+                    moveCount--;
+                    break;
+                default:
+                    restored.move(from, to);
+                    if (redoDepth > 0) {
+                        cursor++;
+                        undoDepth++;
+                        redoDepth--;
+                    } else {
+                        ring[(int) (cursor++ & ringMask)] = (byte) move;
+                        undoDepth = Math.min(undoDepth + 1, ring.length);
+                    }
+                    moveCount++;
+                    break;
+            }
+            end++;
+            sinceCheckpoint++;
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary file of Hanoi moves. Each move is stored as the index of its
+ * (from, to) pair in a few bits (3 bits for 3 pegs, at most 8 for 16 pegs),
+ * packed little-endian into 64-bit words and written through memory-mapped
+ * windows of a FileChannel.
+ *
+ * Layout: a 24-byte header (magic "HNOI", version, pegs, disks, bits per move,
+ * source peg, target peg, reserved, move count) followed by the packed words.
+ */
+public final class HanoiMoveFile {
+    public static final int MAGIC = 0x494F4E48;  // "HNOI" read little-endian
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 24;
+
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private HanoiMoveFile() {}
+
+    public static int bitsPerMove(int numPegs) {
+        return 64 - Long.numberOfLeadingZeros(numPegs * (numPegs - 1) - 1);
+    }
+
+    static int encode(int from, int to, int numPegs) {
+        return from * (numPegs - 1) + (to < from ? to : to - 1);
+    }
+
+    /** Bytes of packed move data, rounded up to whole 64-bit words. */
+    static long dataBytes(long moveCount, int bits) {
+        long words = (moveCount / 64) * bits + ((moveCount % 64) * bits + 63) / 64;
+        return words * 8;
+    }
+
+    /**
+     * Writes {@code moveCount} moves from the source to a new file, replacing
+     * any existing one.
+     */
+    public static void write(Path path, HanoiMoveSource source, long moveCount,
+                             int numDisks, int numPegs, int from, int to) throws IOException {
+        int bits = bitsPerMove(numPegs);
+        long total = HEADER_BYTES + dataBytes(moveCount, bits);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).put((byte) VERSION).put((byte) numPegs).put((byte) numDisks)
+                    .put((byte) bits).put((byte) from).put((byte) to).putShort((short) 0).putInt(0)
+                    .putLong(moveCount).flip();
+            channel.write(header, 0);
+
+            long position = HEADER_BYTES;
+            MappedByteBuffer window = null;
+            long acc = 0;
+            int accBits = 0;
+            for (long i = 0; i < moveCount; i++) {
+                if (!source.advance()) {
+                    throw new IllegalStateException("Move source ended after " + i + " of " + moveCount + " moves");
+                }
+                long code = encode(source.from(), source.to(), numPegs);
+                acc |= code << accBits;
+                accBits += bits;
+                if (accBits >= 64) {
+                    if (window == null || !window.hasRemaining()) {
+                        window = map(channel, FileChannel.MapMode.READ_WRITE, position, total);
+                        position += window.capacity();
+                    }
+                    window.putLong(acc);
+                    accBits -= 64;
+                    acc = code >>> (bits - accBits);
+                }
+            }
+            if (accBits > 0) {
+                if (window == null || !window.hasRemaining()) {
+                    window = map(channel, FileChannel.MapMode.READ_WRITE, position, total);
+                }
+                window.putLong(acc);
+            }
+            if (window != null) {
+                window.force();
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long total)
+            throws IOException {
+        long size = Math.min(WINDOW_BYTES, total - position);
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /** Streams moves back out of a file written by {@link #write}. */
+    public static final class Reader implements HanoiMoveSource, AutoCloseable {
+        private final FileChannel channel;
+        private final int numPegs;
+        private final int numDisks;
+        private final int bits;
+        private final int fromPeg;
+        private final int toPeg;
+        private final long moveCount;
+        private final long total;
+        private final long mask;
+        private MappedByteBuffer window;
+        private long position = HEADER_BYTES;
+        private long read;
+        private long acc;
+        private int accBits;
+        private int from = -1;
+        private int to = -1;
+
+        public Reader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not a Hanoi move file");
+            }
+            int version = header.get();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported move file version " + version);
+            }
+            numPegs = header.get();
+            numDisks = header.get();
+            bits = header.get();
+            fromPeg = header.get();
+            toPeg = header.get();
+            header.position(16);
+            moveCount = header.getLong();
+            total = channel.size();
+            mask = (1L << bits) - 1;
+        }
+
+        public int getNumPegs() {
+            return numPegs;
+        }
+
+        public int getNumDisks() {
+            return numDisks;
+        }
+
+        public int getFromPeg() {
+            return fromPeg;
+        }
+
+        public int getToPeg() {
+            return toPeg;
+        }
+
+        public long getMoveCount() {
+            return moveCount;
+        }
+
+        @Override
+        public boolean advance() {
+            if (read == moveCount) {
+                return false;
+            }
+            long code;
+            if (accBits >= bits) {
+                code = acc & mask;
+                acc >>>= bits;
+                accBits -= bits;
+            } else {
+                // Move straddles two words: low bits from the old one, the rest from the next
+                long word = nextWord();
+                code = (acc | (word << accBits)) & mask;
+                int used = bits - accBits;
+                acc = word >>> used;
+                accBits = 64 - used;
+            }
+            read++;
+            from = (int) (code / (numPegs - 1));
+            int t = (int) (code % (numPegs - 1));
+            to = t >= from ? t + 1 : t;
+            return true;
+        }
+
+        private long nextWord() {
+            try {
+                if (window == null || !window.hasRemaining()) {
+                    window = map(channel, FileChannel.MapMode.READ_ONLY, position, total);
+                    position += window.capacity();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map move file", e);
+            }
+            return window.getLong();
+        }
+
+        @Override
+        public int from() {
+            return from;
+        }
+
+        @Override
+        public int to() {
+            return to;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
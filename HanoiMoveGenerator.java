@@ -0,0 +1,113 @@
+/**
+ * Iterative generator for the optimal Tower of Hanoi solution.
+ *
+ * Moves are derived from the move number alone (move m moves disk
+ * numberOfTrailingZeros(m)), so the generator holds a constant amount of
+ * state and never allocates per move. Supports up to 63 disks.
+ */
+public class HanoiMoveGenerator implements HanoiMoveSource {
+    public static final int MAX_DISKS = 63;
+
+    /** Push-style receiver for generated moves. */
+    public interface MoveSink {
+        void accept(int from, int to);
+    }
+
+    private final int numDisks;
+    private final int[] pegs = new int[3];
+    private final long totalMoves;
+    private long moveNumber;
+    private int from;
+    private int to;
+
+    public HanoiMoveGenerator(int numDisks, int from, int to, int aux) {
+        if (numDisks < 0 || numDisks > MAX_DISKS) {
+            throw new IllegalArgumentException("numDisks must be between 0 and " + MAX_DISKS);
+        }
+        this.numDisks = numDisks;
+        this.totalMoves = totalMoves(numDisks);
+        // The closed form moves the tower 0 -> 2 for odd n and 0 -> 1 for even n
+        pegs[0] = from;
+        pegs[(numDisks & 1) == 1 ? 2 : 1] = to;
+        pegs[(numDisks & 1) == 1 ? 1 : 2] = aux;
+        this.from = -1;
+        this.to = -1;
+    }
+
+    /** Length of the optimal solution for n disks. */
+    public static long totalMoves(int numDisks) {
+        return (1L << numDisks) - 1;
+    }
+
+    public int getNumDisks() {
+        return numDisks;
+    }
+
+    public long getTotalMoves() {
+        return totalMoves;
+    }
+
+    /** Number of moves emitted so far; also the 1-based index of the current move. */
+    public long getMoveNumber() {
+        return moveNumber;
+    }
+
+    public boolean hasNext() {
+        return moveNumber < totalMoves;
+    }
+
+    /** Advances to the next move; read it with {@link #from()} and {@link #to()}. */
+    @Override
+    public boolean advance() {
+        if (moveNumber >= totalMoves) {
+            return false;
+        }
+        long m = ++moveNumber;
+        from = pegs[(int) Long.remainderUnsigned(m & (m - 1), 3)];
+        to = pegs[(int) Long.remainderUnsigned((m | (m - 1)) + 1, 3)];
+        return true;
+    }
+
+    @Override
+    public int from() {
+        return from;
+    }
+
+    @Override
+    public int to() {
+        return to;
+    }
+
+    /** Disk moved by the current move, 1 being the smallest. */
+    public int disk() {
+        return Long.numberOfTrailingZeros(moveNumber) + 1;
+    }
+
+    /** Pushes every remaining move into the sink. */
+    @Override
+    public void forEachRemaining(MoveSink sink) {
+        while (advance()) {
+            sink.accept(from, to);
+        }
+    }
+
+    /** Positions the generator so that the next move emitted is move k + 1. */
+    public void seek(long k) {
+        if (k < 0 || k > totalMoves) {
+            throw new IllegalArgumentException("Move " + k + " is outside the solution");
+        }
+        moveNumber = k;
+        from = -1;
+        to = -1;
+    }
+
+    public void reset() {
+        moveNumber = 0;
+        from = -1;
+        to = -1;
+    }
+
+    public static void generate(int numDisks, int from, int to, int aux, MoveSink sink) {
+        new HanoiMoveGenerator(numDisks, from, to, aux).forEachRemaining(sink);
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Pull-style stream of Hanoi moves shared by the solvers: call
+ * {@link #advance()} and read the move with {@link #from()} and {@link #to()}.
+ */
+public interface HanoiMoveSource {
+    boolean advance();
+
+    int from();
+
+    int to();
+
+    /** Pushes every remaining move into the sink. */
+    default void forEachRemaining(HanoiMoveGenerator.MoveSink sink) {
+        while (advance()) {
+            sink.accept(from(), to());
+        }
+    }
+}
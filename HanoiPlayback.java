@@ -0,0 +1,160 @@
+import javax.swing.Timer;
+
+/**
+ * Plays a move stream onto a board at a chosen rate, independent of the frame
+ * rate. A Swing timer fires once per frame on the Event Dispatch Thread and
+ * applies however many moves are due since the last frame, so the board is
+ * only ever touched on the EDT and the renderer sees whole batches. Work per
+ * frame is capped by a time budget; backlog beyond it is dropped rather than
+ * piling up.
+ */
+public class HanoiPlayback {
+    public static final double MIN_RATE = 1;
+    public static final double MAX_RATE = 10_000_000;
+
+    private static final int FRAME_MILLIS = 16;
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+    private static final int BUDGET_CHECK_INTERVAL = 1024;
+
+    /** Receives progress on the EDT, at most once per frame. */
+    public interface Listener {
+        void movesApplied(int count);
+
+        void finished();
+    }
+
+    private final HanoiBoard board;
+    private final HanoiMoveSource source;
+    private final Listener listener;
+    private final Timer timer;
+    private double movesPerSecond = 1;
+    private double credit;
+    private long lastFrame;
+    private boolean paused;
+    private boolean done;
+    private GameMetrics metrics;
+
+    public HanoiPlayback(HanoiBoard board, HanoiMoveSource source, Listener listener) {
+        this.board = board;
+        this.source = source;
+        this.listener = listener;
+        this.timer = new Timer(FRAME_MILLIS, e -> frame());
+        this.timer.setCoalesce(true);
+    }
+
+    public void setMovesPerSecond(double movesPerSecond) {
+        this.movesPerSecond = Math.max(MIN_RATE, Math.min(MAX_RATE, movesPerSecond));
+    }
+
+    public double getMovesPerSecond() {
+        return movesPerSecond;
+    }
+
+    /** Times each frame's batch of moves into {@code metrics}, or stops timing if null. */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void start() {
+        if (done) {
+            return;
+        }
+        // The first move shows straight away, as the old solver thread did
+        credit = 1;
+        lastFrame = System.nanoTime();
+        paused = false;
+        timer.start();
+    }
+
+    public void pause() {
+        paused = true;
+        timer.stop();
+    }
+
+    public void resume() {
+        if (done || !paused) {
+            return;
+        }
+        paused = false;
+        credit = 0;
+        lastFrame = System.nanoTime();
+        timer.start();
+    }
+
+    /** Applies a single move; intended for use while paused. */
+    public void step() {
+        if (done) {
+            return;
+        }
+        if (source.advance()) {
+            board.move(source.from(), source.to());
+            listener.movesApplied(1);
+        } else {
+            finish();
+        }
+    }
+
+    /** Stops playback for good; the listener is not notified. */
+    public void cancel() {
+        done = true;
+        timer.stop();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    private void frame() {
+        if (done || paused) {
+            return;
+        }
+        long now = System.nanoTime();
+        credit += (now - lastFrame) * movesPerSecond / 1e9;
+        lastFrame = now;
+        long due = (long) credit;
+        if (due == 0) {
+            return;
+        }
+        if (metrics != null) {
+            metrics.tickStarted();
+        }
+        long deadline = now + FRAME_BUDGET_NANOS;
+        int applied = 0;
+        boolean exhausted = false;
+        while (applied < due) {
+            if (!source.advance()) {
+                exhausted = true;
+                break;
+            }
+            board.move(source.from(), source.to());
+            applied++;
+            if (applied % BUDGET_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                // Over budget: drop the backlog so a slow frame does not snowball
+                credit = 0;
+                break;
+            }
+        }
+        if (credit >= applied) {
+            credit -= applied;
+        }
+        if (applied > 0) {
+            listener.movesApplied(applied);
+        }
+        if (exhausted) {
+            finish();
+        }
+        if (metrics != null) {
+            metrics.tickEnded();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        timer.stop();
+        listener.finished();
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Optimal 3-rod solver from any legal configuration. Walking from the largest
+ * disk down, each disk either already sits on the rod it must end on or has to
+ * move there, in which case every smaller disk must first gather on the third
+ * rod. That chain of targets gives the remaining distance and the next move in
+ * O(n) with no search; the solver streams the full sequence by applying the
+ * next move to a private copy of the rod masks.
+ */
+public class HanoiPositionSolver implements HanoiMoveSource {
+    private final long[] rods = new long[3];
+    private final int numDisks;
+    private final int targetRod;
+    private int from = -1;
+    private int to = -1;
+
+    public HanoiPositionSolver(HanoiBoard board, int targetRod) {
+        for (int i = 0; i < 3; i++) {
+            rods[i] = board.getRodMask(i);
+        }
+        this.numDisks = board.getNumDisks();
+        this.targetRod = targetRod;
+    }
+
+    /**
+     * Number of moves left in the optimal solution. Read as unsigned when the
+     * board holds 64 disks.
+     */
+    public static long distance(HanoiBoard board, int targetRod) {
+        long moves = 0;
+        int target = targetRod;
+        for (int disk = board.getNumDisks(); disk > 0; disk--) {
+            int rod = board.rodOf(disk);
+            if (rod != target) {
+                moves += 1L << (disk - 1);
+                target = 3 - rod - target;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Next move of the optimal solution packed as {@code (from << 8) | to},
+     * or -1 when the board is already solved.
+     */
+    public static int nextMove(HanoiBoard board, int targetRod) {
+        int move = -1;
+        int target = targetRod;
+        for (int disk = board.getNumDisks(); disk > 0; disk--) {
+            int rod = board.rodOf(disk);
+            if (rod != target) {
+                // The smallest misplaced disk in the chain moves first
+                move = (rod << 8) | target;
+                target = 3 - rod - target;
+            }
+        }
+        return move;
+    }
+
+    public static int moveFrom(int move) {
+        return move >>> 8;
+    }
+
+    public static int moveTo(int move) {
+        return move & 0xFF;
+    }
+
+    public int getTargetRod() {
+        return targetRod;
+    }
+
+    /** Advances to the next move; read it with {@link #from()} and {@link #to()}. */
+    @Override
+    public boolean advance() {
+        int target = targetRod;
+        int moveFrom = -1;
+        int moveTo = -1;
+        for (int disk = numDisks; disk > 0; disk--) {
+            long bit = 1L << (disk - 1);
+            int rod = (rods[0] & bit) != 0 ? 0 : (rods[1] & bit) != 0 ? 1 : 2;
+            if (rod != target) {
+                moveFrom = rod;
+                moveTo = target;
+                target = 3 - rod - target;
+            }
+        }
+        if (moveFrom < 0) {
+            return false;
+        }
+        long top = rods[moveFrom] & -rods[moveFrom];
+        rods[moveFrom] ^= top;
+        rods[moveTo] |= top;
+        from = moveFrom;
+        to = moveTo;
+        return true;
+    }
+
+    @Override
+    public int from() {
+        return from;
+    }
+
+    @Override
+    public int to() {
+        return to;
+    }
+}
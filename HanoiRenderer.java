@@ -0,0 +1,230 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the Hanoi board from cached images. The background and rods are
+ * rendered once into a compatible image and each disk size gets its own
+ * pre-rendered sprite, so a frame is a handful of image blits with no Color
+ * or shape allocation. Both caches are rebuilt only when the panel size or
+ * the rod/disk counts change. Disks outside the clip are skipped, which keeps
+ * the small dirty-region repaints issued during a drag cheap.
+ *
+ * Layout scales with the panel: rods share the middle three fifths of the
+ * width and disks shrink to fit the rod height. Once disks get thinner than
+ * {@link #MIN_SPRITE_PITCH} pixels, each rod is drawn as one filled band per
+ * pixel row instead of one sprite per disk.
+ */
+public class HanoiRenderer {
+    public static final int MAX_DISK_SPACING = 25;
+    public static final int MAX_DISK_HEIGHT = 20;
+    public static final int MAX_DISK_UNIT = 30;
+    public static final int ROD_WIDTH = 5;
+    public static final double MIN_SPRITE_PITCH = 3;
+
+    private final Color background;
+    private int numRods;
+    private int numDisks;
+    private int width;
+    private int height;
+    private GraphicsConfiguration config;
+    private Image backgroundImage;
+    private Image[] sprites = new Image[0];
+    private Color[] colors = new Color[0];
+    private final Rectangle scratch = new Rectangle();
+
+    // Layout derived from the panel size and rod/disk counts
+    private int boardLeft;
+    private int spacing;
+    private int baseY;
+    private int rodHeight;
+    private double pitch;
+    private int diskHeight;
+    private double diskUnit;
+
+    public HanoiRenderer(Color background) {
+        this.background = background;
+    }
+
+    /** Drops the cached images; they are rebuilt on the next paint. */
+    public void release() {
+        if (backgroundImage != null) {
+            backgroundImage.flush();
+            backgroundImage = null;
+        }
+        for (Image sprite : sprites) {
+            if (sprite != null) {
+                sprite.flush();
+            }
+        }
+        sprites = new Image[0];
+    }
+
+    /** Rod under the given x coordinate, or -1. Valid once the board has been painted. */
+    public int rodAt(int x) {
+        if (spacing == 0 || x < boardLeft) {
+            return -1;
+        }
+        int rod = (x - boardLeft) / spacing;
+        return rod < numRods ? rod : -1;
+    }
+
+    /** Bounds of a disk centred at x with its vertical centre at y. */
+    public Rectangle diskBounds(int x, int y, int disk, Rectangle out) {
+        int w = diskWidth(disk);
+        out.setBounds(x - w / 2, y - diskHeight / 2, w, diskHeight);
+        return out;
+    }
+
+    /** Bounds of the top disk of a rod where it rests. Valid once the board has been painted. */
+    public Rectangle topDiskBounds(HanoiBoard board, int rod, Rectangle out) {
+        int x = boardLeft + spacing / 2 + rod * spacing;
+        int level = board.size(rod) - 1;
+        return diskBounds(x, (int) (baseY - level * pitch), board.topDisk(rod), out);
+    }
+
+    private int diskWidth(int disk) {
+        return Math.max(1, (int) Math.round(disk * diskUnit));
+    }
+
+    /**
+     * Paints the board. The disk {@code dragDisk} (or -1) is lifted off its rod
+     * and drawn centred at (dragX, dragY).
+     */
+    public void paint(Graphics g, Component target, HanoiBoard board, int dragDisk, int dragX, int dragY) {
+        ensureCaches(target, board);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, width, height);
+        }
+        g.drawImage(backgroundImage, 0, 0, null);
+        boolean banded = pitch < MIN_SPRITE_PITCH;
+
+        for (int i = 0; i < numRods; i++) {
+            int x = boardLeft + spacing / 2 + i * spacing;
+            if (banded) {
+                paintBands(g, clip, x, board.getRodMask(i), dragDisk);
+                continue;
+            }
+            // Walk the rod bottom-up: highest set bit is the largest disk
+            long rod = board.getRodMask(i);
+            int level = 0;
+            while (rod != 0) {
+                int bit = 63 - Long.numberOfLeadingZeros(rod);
+                rod &= ~(1L << bit);
+                int disk = bit + 1;
+                if (disk == dragDisk) {
+                    continue;
+                }
+                drawDisk(g, clip, x, (int) (baseY - level * pitch), disk);
+                level++;
+            }
+        }
+
+        if (dragDisk > 0) {
+            drawDisk(g, clip, dragX, dragY, dragDisk);
+        }
+    }
+
+    // Disks sharing a pixel row collapse into one fill as wide as the lowest (largest) of them
+    private void paintBands(Graphics g, Rectangle clip, int x, long rod, int dragDisk) {
+        int level = 0;
+        int bandY = Integer.MIN_VALUE;
+        while (rod != 0) {
+            int bit = 63 - Long.numberOfLeadingZeros(rod);
+            rod &= ~(1L << bit);
+            int disk = bit + 1;
+            if (disk == dragDisk) {
+                continue;
+            }
+            int y = (int) (baseY - level * pitch);
+            level++;
+            if (y == bandY) {
+                continue;
+            }
+            bandY = y;
+            int w = diskWidth(disk);
+            if (y + diskHeight >= clip.y && y - diskHeight <= clip.y + clip.height) {
+                g.setColor(colors[disk]);
+                g.fillRect(x - w / 2, y - diskHeight / 2, w, diskHeight);
+            }
+        }
+    }
+
+    private void drawDisk(Graphics g, Rectangle clip, int x, int y, int disk) {
+        Rectangle r = diskBounds(x, y, disk, scratch);
+        if (!r.intersects(clip)) {
+            return;
+        }
+        if (pitch < MIN_SPRITE_PITCH) {
+            g.setColor(colors[disk]);
+            g.fillRect(r.x, r.y, r.width, r.height);
+        } else {
+            g.drawImage(sprites[disk], r.x, r.y, null);
+        }
+    }
+
+    private void ensureCaches(Component target, HanoiBoard board) {
+        GraphicsConfiguration gc = target.getGraphicsConfiguration();
+        if (backgroundImage != null && gc == config && target.getWidth() == width && target.getHeight() == height
+                && board.getNumRods() == numRods && board.getNumDisks() == numDisks) {
+            return;
+        }
+        config = gc;
+        width = Math.max(1, target.getWidth());
+        height = Math.max(1, target.getHeight());
+        numRods = board.getNumRods();
+        numDisks = board.getNumDisks();
+
+        boardLeft = width / 5;
+        spacing = width * 3 / 5 / numRods;
+        baseY = height * 3 / 4;
+        rodHeight = height * 3 / 8;
+        pitch = Math.min(MAX_DISK_SPACING, (rodHeight - 5) / (double) Math.max(1, numDisks));
+        diskHeight = pitch >= MIN_SPRITE_PITCH
+                ? Math.min(MAX_DISK_HEIGHT, (int) Math.round(pitch * 0.8))
+                : Math.max(1, (int) Math.ceil(pitch));
+        diskUnit = Math.min(MAX_DISK_UNIT, (spacing - 10) / (double) Math.max(1, numDisks));
+
+        backgroundImage = createImage(width, height, Transparency.OPAQUE);
+        Graphics2D bg = (Graphics2D) backgroundImage.getGraphics();
+        bg.setColor(background);
+        bg.fillRect(0, 0, width, height);
+        bg.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < numRods; i++) {
+            bg.fillRect(boardLeft + spacing / 2 + i * spacing, baseY - rodHeight, ROD_WIDTH, rodHeight);
+        }
+        bg.dispose();
+
+        colors = new Color[numDisks + 1];
+        sprites = new Image[numDisks + 1];
+        for (int disk = 1; disk <= numDisks; disk++) {
+            colors[disk] = diskColor(disk, numDisks);
+            if (pitch < MIN_SPRITE_PITCH) {
+                continue;
+            }
+            int w = diskWidth(disk);
+            sprites[disk] = createImage(w, diskHeight, Transparency.TRANSLUCENT);
+            Graphics2D sg = (Graphics2D) sprites[disk].getGraphics();
+            sg.setColor(colors[disk]);
+            int arc = Math.min(10, diskHeight);
+            sg.fillRoundRect(0, 0, w, diskHeight, arc, arc);
+            sg.dispose();
+        }
+    }
+
+    private Image createImage(int w, int h, int transparency) {
+        if (config != null) {
+            return config.createCompatibleImage(w, h, transparency);
+        }
+        return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // The original 8-disk palette, stretched across larger disk counts
+    private static Color diskColor(int disk, int numDisks) {
+        double step = 15.0 * 8 / Math.max(8, numDisks);
+        int red = (int) Math.min(255, 100 + disk * step);
+        int blue = (int) Math.max(0, 200 - disk * step);
+        return new Color(red, 100, blue);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Move rules for a Hanoi variant together with its optimal solver. The size
+ * order (never a larger disk on a smaller one) always applies; a variant only
+ * narrows which moves are allowed on top of that. Every variant starts with
+ * all disks on rod 0 and is solved when they are all on the last rod.
+ */
+public interface HanoiRules {
+    /**
+     * Whether {@code disk} may move from rod {@code from} onto rod {@code to},
+     * whose top disk is {@code targetTop} (0 when empty). Size order has
+     * already been checked.
+     */
+    boolean allows(int disk, int from, int to, int targetTop, int numRods);
+
+    boolean supportsRods(int numRods);
+
+    /** Length of the optimal solution, saturating at Long.MAX_VALUE. */
+    long minMoves(int numDisks, int numRods);
+
+    /** Largest tower whose solution length fits in a long. */
+    int maxDisks(int numRods);
+
+    /** Streams the optimal solution from the start position. */
+    HanoiMoveSource solver(int numDisks, int numRods);
+
+    default boolean isValidMove(HanoiBoard board, int from, int to) {
+        return board.isValidMove(from, to)
+                && allows(board.topDisk(from), from, to, board.topDisk(to), board.getNumRods());
+    }
+}
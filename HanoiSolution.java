@@ -0,0 +1,72 @@
+import java.util.Arrays;
+
+/**
+ * Random access into the optimal Tower of Hanoi solution. Move k is fully
+ * determined by the binary digits of k (disk d is on the target half of its
+ * sub-solution exactly when bit d - 1 of k is set), so both directions run in
+ * O(n) without replaying the prefix.
+ */
+public final class HanoiSolution {
+    private HanoiSolution() {}
+
+    /**
+     * Writes the rod masks after the first k moves of moving n disks from
+     * {@code from} to {@code to} into {@code out}, which is cleared first.
+     */
+    public static void stateAt(int numDisks, long k, int from, int to, int aux, long[] out) {
+        if (numDisks < 0 || numDisks > HanoiMoveGenerator.MAX_DISKS) {
+            throw new IllegalArgumentException("numDisks must be between 0 and " + HanoiMoveGenerator.MAX_DISKS);
+        }
+        if (k < 0 || k > (1L << numDisks) - 1) {
+            throw new IllegalArgumentException("Move " + k + " is outside the solution");
+        }
+        Arrays.fill(out, 0L);
+        for (int disk = numDisks; disk > 0; disk--) {
+            long bit = 1L << (disk - 1);
+            if ((k & bit) == 0) {
+                // Still in the first half: disk stays, smaller ones head to aux
+                out[from] |= bit;
+                int t = to;
+                to = aux;
+                aux = t;
+            } else {
+                // Past the middle move: disk is on target, smaller ones leave aux
+                out[to] |= bit;
+                int f = from;
+                from = aux;
+                aux = f;
+            }
+        }
+    }
+
+    /** Applies {@link #stateAt} to a board. */
+    public static void seek(HanoiBoard board, long k, int from, int to, int aux) {
+        long[] masks = new long[board.getNumRods()];
+        stateAt(board.getNumDisks(), k, from, to, aux, masks);
+        board.setRodMasks(masks);
+    }
+
+    /**
+     * Move number at which the optimal solution passes through the given
+     * configuration, or -1 if the configuration is not on that path.
+     */
+    public static long moveNumberOf(HanoiBoard board, int from, int to, int aux) {
+        long k = 0;
+        for (int disk = board.getNumDisks(); disk > 0; disk--) {
+            long bit = 1L << (disk - 1);
+            if ((board.getRodMask(from) & bit) != 0) {
+                int t = to;
+                to = aux;
+                aux = t;
+            } else if ((board.getRodMask(to) & bit) != 0) {
+                k |= bit;
+                int f = from;
+                from = aux;
+                aux = f;
+            } else {
+                return -1;
+            }
+        }
+        return k;
+    }
+}
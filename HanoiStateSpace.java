@@ -0,0 +1,355 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exhaustive breadth-first explorer over every Hanoi configuration, for exact
+ * shortest paths between arbitrary start and goal positions and for
+ * cross-checking the closed-form solvers.
+ *
+ * A state is the base-k number whose digit d - 1 is the peg holding disk d.
+ * Visited states and BFS frontiers are flat bitsets over that index space
+ * (3^18 states take about 48 MB per bitset), and each frontier is expanded in
+ * parallel by splitting the bitset into word ranges on a ForkJoinPool.
+ */
+public class HanoiStateSpace {
+    /** Largest index space the explorer will allocate bitsets for. */
+    public static final long MAX_STATES = 1L << 34;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int SEQUENTIAL_SUMMARY_WORDS = 64;
+
+    /** Receives each state the first time BFS reaches it; called from worker threads. */
+    public interface StateVisitor {
+        void visit(long state, int depth);
+    }
+
+    private final int numDisks;
+    private final int numPegs;
+    private final long numStates;
+    private final long[] powers;
+    private final ForkJoinPool pool;
+    private final HanoiRules rules;
+
+    public HanoiStateSpace(int numDisks, int numPegs) {
+        this(numDisks, numPegs, HanoiVariant.CLASSIC, ForkJoinPool.commonPool());
+    }
+
+    public HanoiStateSpace(int numDisks, int numPegs, HanoiRules rules) {
+        this(numDisks, numPegs, rules, ForkJoinPool.commonPool());
+    }
+
+    public HanoiStateSpace(int numDisks, int numPegs, HanoiRules rules, ForkJoinPool pool) {
+        if (numPegs < 3 || numPegs > FrameStewartSolver.MAX_PEGS) {
+            throw new IllegalArgumentException("numPegs must be between 3 and " + FrameStewartSolver.MAX_PEGS);
+        }
+        powers = new long[numDisks + 1];
+        powers[0] = 1;
+        for (int d = 1; d <= numDisks; d++) {
+            powers[d] = powers[d - 1] * numPegs;
+            if (powers[d] > MAX_STATES) {
+                throw new IllegalArgumentException(numPegs + "^" + numDisks + " states is too many to explore");
+            }
+        }
+        this.numDisks = numDisks;
+        this.numPegs = numPegs;
+        this.numStates = powers[numDisks];
+        this.pool = pool;
+        this.rules = rules;
+    }
+
+    public long getNumStates() {
+        return numStates;
+    }
+
+    public long encode(HanoiBoard board) {
+        long state = 0;
+        for (int disk = numDisks; disk > 0; disk--) {
+            state = state * numPegs + board.rodOf(disk);
+        }
+        return state;
+    }
+
+    /** Writes the rod masks of a state into {@code rods}. */
+    public void decode(long state, long[] rods) {
+        Arrays.fill(rods, 0L);
+        for (int disk = 1; disk <= numDisks; disk++) {
+            rods[(int) (state % numPegs)] |= 1L << (disk - 1);
+            state /= numPegs;
+        }
+    }
+
+    /** State with every disk on one peg. */
+    public long tower(int peg) {
+        return peg * ((numStates - 1) / (numPegs - 1));
+    }
+
+    /** Exact number of moves between two states, or -1 if goal is unreachable. */
+    public long distance(long start, long goal) {
+        if (start == goal) {
+            return 0;
+        }
+        long[] found = {-1};
+        // The visitor flags the goal; explore stops after the layer that contains it
+        explore(start, (state, depth) -> {
+            if (state == goal) {
+                found[0] = depth;
+            }
+        }, () -> found[0] >= 0);
+        return found[0];
+    }
+
+    /** Explores every reachable state; returns the depth of the last non-empty layer. */
+    public int explore(long source, StateVisitor visitor) {
+        return explore(source, visitor, () -> false);
+    }
+
+    private interface StopCondition {
+        boolean stop();
+    }
+
+    private int explore(long source, StateVisitor visitor, StopCondition stop) {
+        int words = (int) ((numStates + 63) >>> 6);
+        int summaryWords = (words + 4095) >>> 12;
+        Layer frontier = new Layer(words, summaryWords);
+        Layer next = new Layer(words, summaryWords);
+        long[] visited = new long[words];
+        visited[(int) (source >>> 6)] |= 1L << source;
+        frontier.set(source);
+        visitor.visit(source, 0);
+
+        int depth = 0;
+        while (!stop.stop()) {
+            AtomicLong discovered = new AtomicLong();
+            pool.invoke(new ExpandTask(frontier, visited, next, 0, summaryWords, depth + 1, visitor, discovered));
+            if (discovered.get() == 0) {
+                break;
+            }
+            depth++;
+            pool.invoke(new MergeTask(frontier, visited, next, 0, summaryWords));
+            Layer t = frontier;
+            frontier = next;
+            next = t;
+        }
+        return depth;
+    }
+
+    /**
+     * One BFS layer. Besides the state bitset it keeps a summary bit per
+     * 64-word block, so deep searches with thin layers (the 3-peg graph has
+     * diameter 2^n - 1) only touch the blocks that actually hold states.
+     */
+    private static final class Layer {
+        final long[] bits;
+        final long[] summary;
+
+        Layer(int words, int summaryWords) {
+            bits = new long[words];
+            summary = new long[summaryWords];
+        }
+
+        void set(long state) {
+            int word = (int) (state >>> 6);
+            bits[word] |= 1L << state;
+            summary[word >>> 12] |= 1L << (word >>> 6);
+        }
+
+        /** Atomically sets a state; returns false if it was already set. */
+        boolean setConcurrent(long state) {
+            int word = (int) (state >>> 6);
+            long bit = 1L << state;
+            long old = (long) WORDS.getAndBitwiseOr(bits, word, bit);
+            if (old == 0) {
+                WORDS.getAndBitwiseOr(summary, word >>> 12, 1L << (word >>> 6));
+            }
+            return (old & bit) == 0;
+        }
+    }
+
+    /** Returns the number of neighbours this call discovered first. */
+    private int expandState(long state, long[] visited, Layer next, int depth, StateVisitor visitor, int[] tops) {
+        // tops[p] is the smallest disk on peg p, 0 when empty
+        Arrays.fill(tops, 0);
+        long rest = state;
+        for (int disk = 1; disk <= numDisks; disk++) {
+            int peg = (int) (rest % numPegs);
+            rest /= numPegs;
+            if (tops[peg] == 0) {
+                tops[peg] = disk;
+            }
+        }
+        int discovered = 0;
+        for (int from = 0; from < numPegs; from++) {
+            int disk = tops[from];
+            if (disk == 0) {
+                continue;
+            }
+            for (int to = 0; to < numPegs; to++) {
+                if (to == from || (tops[to] != 0 && tops[to] < disk) || !rules.allows(disk, from, to, tops[to], numPegs)) {
+                    continue;
+                }
+                long neighbour = state + (to - from) * powers[disk - 1];
+                if ((visited[(int) (neighbour >>> 6)] & (1L << neighbour)) == 0 && next.setConcurrent(neighbour)) {
+                    discovered++;
+                    visitor.visit(neighbour, depth);
+                }
+            }
+        }
+        return discovered;
+    }
+
+    @SuppressWarnings("serial")
+    private final class ExpandTask extends RecursiveAction {
+        private final Layer frontier;
+        private final long[] visited;
+        private final Layer next;
+        private final int lo;
+        private final int hi;
+        private final int depth;
+        private final StateVisitor visitor;
+        private final AtomicLong discovered;
+
+        ExpandTask(Layer frontier, long[] visited, Layer next, int lo, int hi,
+                   int depth, StateVisitor visitor, AtomicLong discovered) {
+            this.frontier = frontier;
+            this.visited = visited;
+            this.next = next;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+            this.visitor = visitor;
+            this.discovered = discovered;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > SEQUENTIAL_SUMMARY_WORDS) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ExpandTask(frontier, visited, next, lo, mid, depth, visitor, discovered),
+                        new ExpandTask(frontier, visited, next, mid, hi, depth, visitor, discovered));
+                return;
+            }
+            int[] tops = new int[numPegs];
+            long[] bits = frontier.bits;
+            long found = 0;
+            for (int s = lo; s < hi; s++) {
+                long blocks = frontier.summary[s];
+                while (blocks != 0) {
+                    int first = ((s << 6) + Long.numberOfTrailingZeros(blocks)) << 6;
+                    blocks &= blocks - 1;
+                    int last = Math.min(first + 64, bits.length);
+                    for (int w = first; w < last; w++) {
+                        long word = bits[w];
+                        while (word != 0) {
+                            long state = ((long) w << 6) + Long.numberOfTrailingZeros(word);
+                            word &= word - 1;
+                            found += expandState(state, visited, next, depth, visitor, tops);
+                        }
+                    }
+                }
+            }
+            if (found != 0) {
+                discovered.addAndGet(found);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+        private final Layer frontier;
+        private final long[] visited;
+        private final Layer next;
+        private final int lo;
+        private final int hi;
+
+        MergeTask(Layer frontier, long[] visited, Layer next, int lo, int hi) {
+            this.frontier = frontier;
+            this.visited = visited;
+            this.next = next;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > SEQUENTIAL_SUMMARY_WORDS) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new MergeTask(frontier, visited, next, lo, mid),
+                        new MergeTask(frontier, visited, next, mid, hi));
+                return;
+            }
+            for (int s = lo; s < hi; s++) {
+                long blocks = next.summary[s];
+                while (blocks != 0) {
+                    int first = ((s << 6) + Long.numberOfTrailingZeros(blocks)) << 6;
+                    blocks &= blocks - 1;
+                    int last = Math.min(first + 64, visited.length);
+                    for (int w = first; w < last; w++) {
+                        visited[w] |= next.bits[w];
+                    }
+                }
+                // The old frontier becomes the next layer's scratch space
+                blocks = frontier.summary[s];
+                while (blocks != 0) {
+                    int first = ((s << 6) + Long.numberOfTrailingZeros(blocks)) << 6;
+                    blocks &= blocks - 1;
+                    Arrays.fill(frontier.bits, first, Math.min(first + 64, frontier.bits.length), 0L);
+                }
+                frontier.summary[s] = 0;
+            }
+        }
+    }
+
+    /**
+     * Cross-checks the closed-form solvers against BFS:
+     * {@code java HanoiStateSpace <disks> [pegs] [CLASSIC|CYCLIC|ADJACENT]}.
+     */
+    public static void main(String[] args) {
+        int disks = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int pegs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        HanoiVariant variant = args.length > 2 ? HanoiVariant.valueOf(args[2]) : HanoiVariant.CLASSIC;
+        HanoiStateSpace space = new HanoiStateSpace(disks, pegs, variant);
+        long startTime = System.nanoTime();
+
+        if (pegs == 3 && variant == HanoiVariant.CLASSIC) {
+            // Every state's BFS depth from the goal tower must match the 3-rod closed form
+            ThreadLocal<HanoiBoard> boards = ThreadLocal.withInitial(() -> new HanoiBoard(3, disks));
+            ThreadLocal<long[]> masks = ThreadLocal.withInitial(() -> new long[3]);
+            AtomicLong mismatches = new AtomicLong();
+            int depth = space.explore(space.tower(2), (state, d) -> {
+                HanoiBoard board = boards.get();
+                long[] rods = masks.get();
+                space.decode(state, rods);
+                board.setRodMasks(rods);
+                if (HanoiPositionSolver.distance(board, 2) != d) {
+                    mismatches.incrementAndGet();
+                }
+            });
+            System.out.println(space.getNumStates() + " states, diameter from tower " + depth
+                    + ", mismatches " + mismatches.get());
+        } else {
+            long bfs = space.distance(space.tower(0), space.tower(pegs - 1));
+            long expected = variant.minMoves(disks, pegs);
+            System.out.println(variant + ": BFS " + bfs + " moves, closed form " + expected + " moves"
+                    + (bfs == expected ? "" : " (MISMATCH)"));
+
+            // The streamed solution must be legal under the variant and reach the goal
+            HanoiBoard board = new HanoiBoard(pegs, disks);
+            HanoiMoveSource solver = variant.solver(disks, pegs);
+            long count = 0;
+            while (solver.advance()) {
+                if (!variant.isValidMove(board, solver.from(), solver.to())) {
+                    System.out.println("Illegal move " + (count + 1) + ": " + solver.from() + " -> " + solver.to());
+                    break;
+                }
+                board.move(solver.from(), solver.to());
+                count++;
+            }
+            System.out.println("Solver: " + count + " moves, solved " + board.isSolved(pegs - 1));
+        }
+        System.out.println("Explored in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+    }
+}
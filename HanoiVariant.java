@@ -0,0 +1,98 @@
+/**
+ * The built-in rule sets. Restricted variants are played on 3 rods and solved
+ * by unrolling their defining recurrences with {@link RecurrenceSolver}, so
+ * they stream at the same constant memory as the classic generator.
+ */
+public enum HanoiVariant implements HanoiRules {
+    CLASSIC("Classic") {
+        @Override
+        public boolean allows(int disk, int from, int to, int targetTop, int numRods) {
+            return true;
+        }
+
+        @Override
+        public boolean supportsRods(int numRods) {
+            return numRods >= 3 && numRods <= FrameStewartSolver.MAX_PEGS;
+        }
+
+        @Override
+        public long minMoves(int numDisks, int numRods) {
+            return FrameStewartSolver.minMoves(numDisks, numRods);
+        }
+
+        @Override
+        public int maxDisks(int numRods) {
+            return numRods == 3 ? HanoiMoveGenerator.MAX_DISKS : FrameStewartSolver.MAX_DISKS;
+        }
+
+        @Override
+        public HanoiMoveSource solver(int numDisks, int numRods) {
+            if (numRods == 3) {
+                return new HanoiMoveGenerator(numDisks, 0, 2, 1);
+            }
+            return new FrameStewartSolver(numDisks, numRods, 0, numRods - 1);
+        }
+    },
+
+    /** Disks may only move one rod clockwise: 0 to 1, 1 to 2, 2 to 0. */
+    CYCLIC("Cyclic") {
+        @Override
+        public boolean allows(int disk, int from, int to, int targetTop, int numRods) {
+            return to == (from + 1) % 3;
+        }
+
+        @Override
+        public long minMoves(int numDisks, int numRods) {
+            return RecurrenceSolver.cyclicMoves(numDisks);
+        }
+
+        @Override
+        public int maxDisks(int numRods) {
+            return RecurrenceSolver.CYCLIC_MAX_DISKS;
+        }
+
+        @Override
+        public HanoiMoveSource solver(int numDisks, int numRods) {
+            return RecurrenceSolver.cyclic(numDisks);
+        }
+    },
+
+    /** Disks may only move between neighbouring rods, never directly 0 to 2. */
+    ADJACENT("Adjacent only") {
+        @Override
+        public boolean allows(int disk, int from, int to, int targetTop, int numRods) {
+            return Math.abs(from - to) == 1;
+        }
+
+        @Override
+        public long minMoves(int numDisks, int numRods) {
+            return RecurrenceSolver.adjacentMoves(numDisks);
+        }
+
+        @Override
+        public int maxDisks(int numRods) {
+            return RecurrenceSolver.ADJACENT_MAX_DISKS;
+        }
+
+        @Override
+        public HanoiMoveSource solver(int numDisks, int numRods) {
+            return RecurrenceSolver.adjacent(numDisks);
+        }
+    };
+
+    private final String displayName;
+
+    HanoiVariant(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public boolean supportsRods(int numRods) {
+        return numRods == 3;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram in the style of HdrHistogram. Values below
+ * 64 get a bucket each; above that every power of two is split into 32
+ * buckets, so any recorded value is reported to within about 3% whatever its
+ * magnitude, in under 2,000 longs and with no allocation per value.
+ *
+ * Meant for one writing thread. Readers on other threads (JMX) may see a
+ * value or two missing from the counts, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int LINEAR_LIMIT = 2 << SUB_BITS;
+
+    private final long[] counts = new long[index(Long.MAX_VALUE) + 1];
+    private long count;
+    private long total;
+    private long max;
+
+    private static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // Keep the top SUB_BITS + 1 bits; shift is how many were dropped
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value that falls into the bucket
+    private static long highestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >> SUB_BITS) - 1;
+        long top = index - ((long) shift << SUB_BITS);
+        return ((top + 1) << shift) - 1;
+    }
+
+    /** Records a value; negative values count as 0. */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[index(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : total / (double) count;
+    }
+
+    /** Smallest value at or below which {@code percentile} percent of recordings fall. */
+    public long getValueAtPercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(max, highestValue(i));
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+}
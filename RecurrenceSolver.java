@@ -0,0 +1,163 @@
+/**
+ * Optimal solvers for the restricted 3-rod variants, produced by running their
+ * recurrences on an explicit stack of at most n + 1 frames. Each frame is a
+ * procedure, a disk count, a base rod and a phase, kept in parallel int
+ * arrays, so streaming allocates nothing per move and never searches.
+ *
+ * Cyclic (moves only go clockwise, rod i to i + 1), after Atkinson:
+ * <pre>
+ * cw(n, i):  ccw(n-1, i), disk n i to i+1, ccw(n-1, i+2)
+ * ccw(n, i): ccw(n-1, i), disk n i to i+1, cw(n-1, i+2), disk n i+1 to i+2, ccw(n-1, i)
+ * </pre>
+ * where ccw moves a tower two steps clockwise. Lengths: Q(n) = 2R(n-1) + 1,
+ * R(n) = 2R(n-1) + Q(n-1) + 2. Going from rod 0 to rod 2 is ccw(n, 0).
+ *
+ * Adjacent only (no direct 0 to 2 move): to take n disks from one end rod to
+ * the other, move n-1 across, disk n to the middle, n-1 back, disk n to the
+ * far end, n-1 across again, for 3^n - 1 moves.
+ */
+public class RecurrenceSolver implements HanoiMoveSource {
+    public static final int CYCLIC_MAX_DISKS;
+    public static final int ADJACENT_MAX_DISKS = 39;
+
+    private static final int CW = 0;
+    private static final int CCW = 1;
+    private static final int ADJ = 2;
+
+    // Precomputed lengths: CYCLIC_ONE[n] = Q(n), CYCLIC_TWO[n] = R(n)
+    private static final long[] CYCLIC_ONE = new long[64];
+    private static final long[] CYCLIC_TWO = new long[64];
+
+    static {
+        int max = 0;
+        try {
+            for (int n = 1; n < 64; n++) {
+                long twice = Math.multiplyExact(CYCLIC_TWO[n - 1], 2L);
+                CYCLIC_ONE[n] = Math.addExact(twice, 1L);
+                CYCLIC_TWO[n] = Math.addExact(Math.addExact(twice, CYCLIC_ONE[n - 1]), 2L);
+                max = n;
+            }
+        } catch (ArithmeticException e) {
+            // Longer solutions cannot be counted in a long
+        }
+        CYCLIC_MAX_DISKS = max;
+    }
+
+    private final int[] proc;
+    private final int[] disks;
+    private final int[] base;
+    private final int[] phase;
+    private int depth;
+    private int from = -1;
+    private int to = -1;
+
+    private RecurrenceSolver(int procedure, int numDisks, int baseRod) {
+        proc = new int[numDisks + 1];
+        disks = new int[numDisks + 1];
+        base = new int[numDisks + 1];
+        phase = new int[numDisks + 1];
+        if (numDisks > 0) {
+            push(procedure, numDisks, baseRod);
+        }
+    }
+
+    /** Cyclic solution moving the tower from rod 0 to rod 2. */
+    public static RecurrenceSolver cyclic(int numDisks) {
+        checkDisks(numDisks, CYCLIC_MAX_DISKS);
+        return new RecurrenceSolver(CCW, numDisks, 0);
+    }
+
+    /** Adjacent-only solution moving the tower from rod 0 to rod 2. */
+    public static RecurrenceSolver adjacent(int numDisks) {
+        checkDisks(numDisks, ADJACENT_MAX_DISKS);
+        return new RecurrenceSolver(ADJ, numDisks, 0);
+    }
+
+    public static long cyclicMoves(int numDisks) {
+        return numDisks <= CYCLIC_MAX_DISKS ? CYCLIC_TWO[numDisks] : Long.MAX_VALUE;
+    }
+
+    public static long adjacentMoves(int numDisks) {
+        if (numDisks > ADJACENT_MAX_DISKS) {
+            return Long.MAX_VALUE;
+        }
+        long moves = 1;
+        for (int i = 0; i < numDisks; i++) {
+            moves *= 3;
+        }
+        return moves - 1;
+    }
+
+    private static void checkDisks(int numDisks, int max) {
+        if (numDisks < 0 || numDisks > max) {
+            throw new IllegalArgumentException("numDisks must be between 0 and " + max);
+        }
+    }
+
+    private void push(int procedure, int n, int rod) {
+        if (n == 0) {
+            return;
+        }
+        proc[depth] = procedure;
+        disks[depth] = n;
+        base[depth] = rod % 3;
+        phase[depth] = 0;
+        depth++;
+    }
+
+    private boolean emit(int moveFrom, int moveTo) {
+        from = moveFrom % 3;
+        to = moveTo % 3;
+        return true;
+    }
+
+    @Override
+    public boolean advance() {
+        while (depth > 0) {
+            int top = depth - 1;
+            int n = disks[top];
+            int i = base[top];
+            int step = phase[top]++;
+            switch (proc[top]) {
+                case CW:
+                    switch (step) {
+                        case 0: push(CCW, n - 1, i); break;
+                        case 1: return emit(i, i + 1);
+                        case 2: depth--; push(CCW, n - 1, i + 2); break;
+                        default: break;
+                    }
+                    break;
+                case CCW:
+                    switch (step) {
+                        case 0: push(CCW, n - 1, i); break;
+                        case 1: return emit(i, i + 1);
+                        case 2: push(CW, n - 1, i + 2); break;
+                        case 3: return emit(i + 1, i + 2);
+                        default: depth--; push(CCW, n - 1, i); break;
+                    }
+                    break;
+                default:
+                    // ADJ: i is the source end rod, 2 - i the target end
+                    switch (step) {
+                        case 0: push(ADJ, n - 1, i); break;
+                        case 1: return emit(i, 1);
+                        case 2: push(ADJ, n - 1, 2 - i); break;
+                        case 3: return emit(1, 2 - i);
+                        default: depth--; push(ADJ, n - 1, i); break;
+                    }
+                    break;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int from() {
+        return from;
+    }
+
+    @Override
+    public int to() {
+        return to;
+    }
+}
@@ -0,0 +1,508 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Many snakes on one board. Every cell of a shared owner grid holds the id + 1
+ * of the snake covering it (0 when free), so each collision test is one array
+ * read however many snakes there are.
+ *
+ * A tick runs in parallel phases over ranges of snakes on a ForkJoinPool:
+ * <ol>
+ * <li>propose: each snake picks a direction from the previous tick's state and
+ * claims its target cell with a CAS; a second claimant marks the cell as
+ * contested, which kills everyone heading there (head-to-head);</li>
+ * <li>resolve: a snake also dies on a wall, or on a body cell unless it is the
+ * tail of a snake that is not growing and so moves out this tick;</li>
+ * <li>vacate: the dead clear their bodies and the rest drop their tails;</li>
+ * <li>occupy: survivors take their target cells.</li>
+ * </ol>
+ * Snakes touch only their own cells within a phase and the phases are
+ * separated by joins, so no locking is needed. Eaten food and dead snakes are
+ * replaced afterwards in snake order from seeded generators, which together
+ * with proposals reading only the previous tick makes a run reproducible at
+ * any parallelism. A snake grows by one when it moves onto food.
+ *
+ * <pre>
+ * java SnakeArena &lt;snakes&gt; [columns rows] [ticks] [seed]
+ * </pre>
+ * benchmarks ticks per second.
+ */
+public class SnakeArena implements SnakeLoop.Simulation {
+    public static final int RESPAWN_TICKS = 20;
+    public static final int TARGET_SAMPLES = 4;
+
+    private static final VarHandle CLAIMS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int CONTESTED = -1;
+    private static final int SNAKES_PER_TASK = 64;
+
+    private static final int PROPOSE = 0;
+    private static final int RESOLVE = 1;
+    private static final int VACATE = 2;
+    private static final int OCCUPY = 3;
+
+    /** Steers one snake; called from worker threads, but never concurrently for the same snake. */
+    public interface Controller {
+        /** Returns a direction from {@link SnakeInputQueue}, or -1 to keep going straight. */
+        int steer(SnakeArena arena, int snake);
+
+        /** Called when the snake (re)spawns, before its first {@link #steer}. */
+        default void spawned(SnakeArena arena, int snake) {
+        }
+    }
+
+    private static final class Snake {
+        final SplittableRandom random;
+        Controller controller;
+        int[] ring = new int[16];
+        int head;
+        int length;
+        int direction;
+        boolean alive;
+        long spawnTick;
+        int score;
+
+        // Per-tick proposal
+        int target;
+        boolean grows;
+        boolean dying;
+
+        // Food cell the built-in player is heading for
+        int goal = -1;
+
+        Snake(SplittableRandom random) {
+            this.random = random;
+        }
+
+        int headCell() {
+            return ring[head];
+        }
+
+        int tailCell() {
+            int index = head + length - 1;
+            return ring[index < ring.length ? index : index - ring.length];
+        }
+    }
+
+    private final int columns;
+    private final int rows;
+    private final int[] owner;
+    private final int[] claims;
+    private final Snake[] snakes;
+    private final SplittableRandom random;
+    private final ForkJoinPool pool;
+
+    // Food as a dense list plus each cell's position in it (-1 if none)
+    private final int[] foodCells;
+    private final int[] foodIndex;
+    private int foodCount;
+    private final int foodTarget;
+
+    private long ticks;
+    private int alive;
+    private long moves;
+
+    public SnakeArena(int columns, int rows, int snakeCount, int foodCount, long seed) {
+        this(columns, rows, snakeCount, foodCount, seed, ForkJoinPool.commonPool());
+    }
+
+    public SnakeArena(int columns, int rows, int snakeCount, int foodCount, long seed, ForkJoinPool pool) {
+        long cells = (long) columns * rows;
+        if (columns < 2 || rows < 2 || cells > SnakeBody.DENSE_LIMIT) {
+            throw new IllegalArgumentException("Arena must have between 4 and " + SnakeBody.DENSE_LIMIT + " cells");
+        }
+        if (snakeCount + foodCount > cells / 2) {
+            throw new IllegalArgumentException("Too many snakes and food for a " + columns + " x " + rows + " arena");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.pool = pool;
+        this.random = new SplittableRandom(seed);
+        owner = new int[(int) cells];
+        claims = new int[(int) cells];
+        foodCells = new int[(int) cells];
+        foodIndex = new int[(int) cells];
+        Arrays.fill(foodIndex, -1);
+        foodTarget = foodCount;
+
+        snakes = new Snake[snakeCount];
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i] = new Snake(random.split());
+            spawn(i);
+        }
+        while (this.foodCount < foodTarget) {
+            addFood(randomFreeCell());
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getAlive() {
+        return alive;
+    }
+
+    /** Moves made by all snakes since the arena was created. */
+    public long getMoves() {
+        return moves;
+    }
+
+    /** Id of the snake covering the cell, or -1. */
+    public int ownerOf(int cell) {
+        return owner[cell] - 1;
+    }
+
+    public boolean hasFood(int cell) {
+        return foodIndex[cell] >= 0;
+    }
+
+    public boolean isAlive(int snake) {
+        return snakes[snake].alive;
+    }
+
+    public int headOf(int snake) {
+        return snakes[snake].headCell();
+    }
+
+    public int lengthOf(int snake) {
+        return snakes[snake].length;
+    }
+
+    public int directionOf(int snake) {
+        return snakes[snake].direction;
+    }
+
+    public int scoreOf(int snake) {
+        return snakes[snake].score;
+    }
+
+    /** Ticks since the snake last (re)spawned. */
+    public long ageOf(int snake) {
+        return ticks - snakes[snake].spawnTick;
+    }
+
+    /** Hands a snake to a controller, or back to the built-in food seeker if null. */
+    public void setController(int snake, Controller controller) {
+        snakes[snake].controller = controller;
+    }
+
+    /**
+     * Controller steering a snake with a recorded game's turns, on the snake's
+     * own clock from when it last spawned.
+     */
+    public static Controller replay(SnakeRecording recording) {
+        return new Controller() {
+            private SnakeRecording.Cursor cursor = recording.cursor();
+
+            @Override
+            public void spawned(SnakeArena arena, int snake) {
+                cursor = recording.cursor();
+            }
+
+            @Override
+            public int steer(SnakeArena arena, int snake) {
+                if (cursor.tick() != arena.ageOf(snake)) {
+                    return -1;
+                }
+                int direction = cursor.direction();
+                cursor.advance();
+                return direction;
+            }
+        };
+    }
+
+    @Override
+    public boolean isOver() {
+        return false;
+    }
+
+    @Override
+    public void tick() {
+        pool.invoke(new PhaseTask(PROPOSE, 0, snakes.length));
+        pool.invoke(new PhaseTask(RESOLVE, 0, snakes.length));
+        pool.invoke(new PhaseTask(VACATE, 0, snakes.length));
+        pool.invoke(new PhaseTask(OCCUPY, 0, snakes.length));
+        // Snakes spawned below first move on the next tick, at age 0
+        ticks++;
+
+        // Bookkeeping that draws random numbers runs in snake order
+        int eaten = 0;
+        for (int i = 0; i < snakes.length; i++) {
+            Snake s = snakes[i];
+            if (s.alive) {
+                moves++;
+                if (s.grows) {
+                    removeFood(s.headCell());
+                    s.score++;
+                    eaten++;
+                }
+            } else if (s.dying) {
+                s.dying = false;
+                s.spawnTick = ticks + RESPAWN_TICKS;
+                alive--;
+            } else if (ticks >= s.spawnTick) {
+                spawn(i);
+            }
+        }
+        for (int i = 0; i < eaten && foodCount < foodTarget; i++) {
+            addFood(randomFreeCell());
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class PhaseTask extends RecursiveAction {
+        private final int phase;
+        private final int lo;
+        private final int hi;
+
+        PhaseTask(int phase, int lo, int hi) {
+            this.phase = phase;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > SNAKES_PER_TASK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new PhaseTask(phase, lo, mid), new PhaseTask(phase, mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                if (!snakes[i].alive) {
+                    continue;
+                }
+                switch (phase) {
+                    case PROPOSE: propose(i); break;
+                    case RESOLVE: resolve(i); break;
+                    case VACATE: vacate(i); break;
+                    default: occupy(i); break;
+                }
+            }
+        }
+    }
+
+    private void propose(int id) {
+        Snake s = snakes[id];
+        int turn = s.controller != null ? s.controller.steer(this, id) : seekFood(s);
+        if (turn >= 0 && turn != SnakeInputQueue.opposite(s.direction)) {
+            s.direction = turn;
+        }
+        int head = s.headCell();
+        int x = head % columns + SnakeInputQueue.dx(s.direction);
+        int y = head / columns + SnakeInputQueue.dy(s.direction);
+        if (x < 0 || x >= columns || y < 0 || y >= rows) {
+            s.target = -1;
+            s.grows = false;
+            return;
+        }
+        int target = y * columns + x;
+        s.target = target;
+        s.grows = foodIndex[target] >= 0;
+        if (!CLAIMS.compareAndSet(claims, target, 0, id + 1)) {
+            CLAIMS.setVolatile(claims, target, CONTESTED);
+        }
+    }
+
+    private void resolve(int id) {
+        Snake s = snakes[id];
+        int target = s.target;
+        if (target < 0 || (int) CLAIMS.getVolatile(claims, target) == CONTESTED) {
+            s.dying = true;
+            return;
+        }
+        int other = owner[target] - 1;
+        if (other >= 0) {
+            // Only a tail that moves away this tick can be entered
+            Snake o = snakes[other];
+            s.dying = target != o.tailCell() || o.grows;
+        }
+    }
+
+    private void vacate(int id) {
+        Snake s = snakes[id];
+        if (s.target >= 0) {
+            claims[s.target] = 0;
+        }
+        if (s.dying) {
+            for (int i = 0; i < s.length; i++) {
+                int index = s.head + i;
+                owner[s.ring[index < s.ring.length ? index : index - s.ring.length]] = 0;
+            }
+            s.alive = false;
+        } else if (!s.grows) {
+            owner[s.tailCell()] = 0;
+            s.length--;
+        }
+    }
+
+    private void occupy(int id) {
+        Snake s = snakes[id];
+        if (s.length == s.ring.length) {
+            int[] bigger = new int[s.ring.length * 2];
+            for (int i = 0; i < s.length; i++) {
+                int index = s.head + i;
+                bigger[i] = s.ring[index < s.ring.length ? index : index - s.ring.length];
+            }
+            s.ring = bigger;
+            s.head = 0;
+        }
+        s.head = s.head == 0 ? s.ring.length - 1 : s.head - 1;
+        s.ring[s.head] = s.target;
+        s.length++;
+        owner[s.target] = id + 1;
+    }
+
+    /**
+     * Built-in player: heads for the nearest of a few sampled food cells,
+     * never into a wall or an occupied cell when it can help it, and prefers
+     * cells with more free neighbours.
+     */
+    private int seekFood(Snake s) {
+        if (s.goal < 0 || foodIndex[s.goal] < 0) {
+            s.goal = -1;
+            int head = s.headCell();
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < TARGET_SAMPLES && foodCount > 0; i++) {
+                int cell = foodCells[s.random.nextInt(foodCount)];
+                int d = distance(head, cell);
+                if (d < best) {
+                    best = d;
+                    s.goal = cell;
+                }
+            }
+        }
+        int head = s.headCell();
+        int x = head % columns;
+        int y = head / columns;
+        int bestDirection = -1;
+        int bestScore = Integer.MAX_VALUE;
+        for (int dir = 0; dir < 4; dir++) {
+            if (dir == SnakeInputQueue.opposite(s.direction)) {
+                continue;
+            }
+            int nx = x + SnakeInputQueue.dx(dir);
+            int ny = y + SnakeInputQueue.dy(dir);
+            if (nx < 0 || nx >= columns || ny < 0 || ny >= rows || owner[ny * columns + nx] != 0) {
+                continue;
+            }
+            int cell = ny * columns + nx;
+            int score = (s.goal >= 0 ? distance(cell, s.goal) : 0) * 4 - freeNeighbours(nx, ny);
+            if (score < bestScore) {
+                bestScore = score;
+                bestDirection = dir;
+            }
+        }
+        return bestDirection;
+    }
+
+    private int distance(int a, int b) {
+        return Math.abs(a % columns - b % columns) + Math.abs(a / columns - b / columns);
+    }
+
+    private int freeNeighbours(int x, int y) {
+        int free = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + SnakeInputQueue.dx(dir);
+            int ny = y + SnakeInputQueue.dy(dir);
+            if (nx >= 0 && nx < columns && ny >= 0 && ny < rows && owner[ny * columns + nx] == 0) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    private void spawn(int id) {
+        Snake s = snakes[id];
+        int cell = randomFreeCell();
+        s.head = 0;
+        s.length = 1;
+        s.ring[0] = cell;
+        s.direction = random.nextInt(4);
+        s.alive = true;
+        s.dying = false;
+        s.grows = false;
+        s.spawnTick = ticks;
+        s.goal = -1;
+        owner[cell] = id + 1;
+        alive++;
+        if (s.controller != null) {
+            s.controller.spawned(this, id);
+        }
+    }
+
+    // Free of snakes and food; the arena is kept at most half full
+    private int randomFreeCell() {
+        while (true) {
+            int cell = random.nextInt(owner.length);
+            if (owner[cell] == 0 && foodIndex[cell] < 0) {
+                return cell;
+            }
+        }
+    }
+
+    private void addFood(int cell) {
+        foodIndex[cell] = foodCount;
+        foodCells[foodCount++] = cell;
+    }
+
+    private void removeFood(int cell) {
+        int index = foodIndex[cell];
+        int last = foodCells[--foodCount];
+        foodCells[index] = last;
+        foodIndex[last] = index;
+        foodIndex[cell] = -1;
+    }
+
+    /** Order-independent digest of the board, for checking runs agree. */
+    public long checksum() {
+        long sum = 0;
+        for (int cell = 0; cell < owner.length; cell++) {
+            if (owner[cell] != 0) {
+                sum += (long) owner[cell] * 0x9E3779B97F4A7C15L ^ cell;
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 5 || args.length == 2) {
+            System.err.println("Usage: java SnakeArena <snakes> [columns rows] [ticks] [seed]");
+            System.exit(2);
+        }
+        int snakeCount = Integer.parseInt(args[0]);
+        int columns = args.length >= 3 ? Integer.parseInt(args[1]) : 500;
+        int rows = args.length >= 3 ? Integer.parseInt(args[2]) : 500;
+        long tickCount = args.length >= 4 ? Long.parseLong(args[3]) : 10_000;
+        long seed = args.length == 5 ? Long.parseLong(args[4]) : 1;
+        SnakeArena arena = new SnakeArena(columns, rows, snakeCount, snakeCount, seed);
+
+        long start = System.nanoTime();
+        long aliveSum = 0;
+        for (long t = 0; t < tickCount; t++) {
+            arena.tick();
+            aliveSum += arena.getAlive();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d snakes on %d x %d, %d threads: %,d ticks in %.2f s, %,.0f ticks/s, %,.0f moves/s%n",
+                snakeCount, columns, rows, ForkJoinPool.commonPool().getParallelism(), tickCount, seconds,
+                tickCount / seconds, arena.getMoves() / seconds);
+        System.out.printf("Average alive %.1f, checksum %016x%n", aliveSum / (double) tickCount, arena.checksum());
+    }
+}
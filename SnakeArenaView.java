@@ -0,0 +1,67 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.swing.*;
+
+/**
+ * Watches a {@link SnakeArena}. After each frame's ticks the owner grid is
+ * written straight into the pixels of a one-pixel-per-cell image, which is
+ * then scaled to the panel, so the cost follows the board size, not the
+ * number of snakes.
+ */
+@SuppressWarnings("serial")
+public class SnakeArenaView extends JPanel {
+    static final long TICK_NANOS = 50_000_000;
+
+    private static final int FOOD = 0xE03030;
+    private static final int STATUS_HEIGHT = 20;
+
+    private final SnakeArena arena;
+    private final SnakeLoop loop;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int[] palette;
+
+    SnakeArenaView(int boardWidth, int boardHeight, SnakeArena arena) {
+        this.arena = arena;
+        setPreferredSize(new Dimension(boardWidth, boardHeight));
+        setBackground(Color.black);
+
+        image = new BufferedImage(arena.getColumns(), arena.getRows(), BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        palette = new int[arena.getSnakeCount()];
+        for (int i = 0; i < palette.length; i++) {
+            // Spread hues by the golden ratio so neighbouring ids differ
+            palette[i] = Color.HSBtoRGB(i * 0.618034f, 0.6f, 0.9f) & 0xFFFFFF;
+        }
+
+        loop = new SnakeLoop(arena, this::frameRendered, TICK_NANOS);
+        loop.start();
+    }
+
+    private void frameRendered() {
+        for (int cell = 0; cell < pixels.length; cell++) {
+            int snake = arena.ownerOf(cell);
+            pixels[cell] = snake >= 0 ? palette[snake] : arena.hasFood(cell) ? FOOD : 0;
+        }
+        for (int i = 0; i < palette.length; i++) {
+            if (arena.isAlive(i)) {
+                pixels[arena.headOf(i)] = 0xFFFFFF;
+            }
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int height = getHeight() - STATUS_HEIGHT;
+        double scale = Math.min(getWidth() / (double) image.getWidth(), height / (double) image.getHeight());
+        int w = (int) (image.getWidth() * scale);
+        int h = (int) (image.getHeight() * scale);
+        g.drawImage(image, (getWidth() - w) / 2, STATUS_HEIGHT + (height - h) / 2, w, h, null);
+        g.setColor(Color.white);
+        g.drawString("Tick " + arena.getTicks() + "   alive " + arena.getAlive() + " / " + arena.getSnakeCount(),
+                10, STATUS_HEIGHT - 5);
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * Computer player for {@link SnakeEngine}. Each food is approached along a
+ * shortest path found by breadth-first search, but only if the snake could
+ * still reach its own tail after eating, so it never walks into a pocket it
+ * cannot leave. Without a safe path it chases its tail, then follows a
+ * Hamiltonian cycle of the board, and as a last resort turns towards the
+ * largest open area.
+ *
+ * The searches treat the body as obstacles that clear over time: the segment
+ * i cells from the tail is gone after i + 1 moves, so paths may run through
+ * cells the tail will have vacated by then. A food path stays valid while the
+ * snake follows it, so it is computed once per food and replayed, and a full
+ * search only happens when the food moves or the plan is broken.
+ */
+public class SnakeAutopilot implements SnakeEngine.Controller {
+    /** After this many board-sizes of ticks without eating, an unsafe food path is taken. */
+    public static final int STALL_FACTOR = 4;
+
+    /** Largest board supported; the search tables take about 40 bytes per cell. */
+    public static final int MAX_CELLS = 1 << 20;
+
+    private final int columns;
+    private final int rows;
+    private final int cells;
+
+    // Hamiltonian successor of each cell, or null when columns and rows are both odd
+    private final int[] cycle;
+
+    // Search scratch; stamps avoid clearing per search
+    private final int[] queue;
+    private final int[] parent;
+    private final int[] distance;
+    private final int[] seen;
+    private final int[] vacate;
+    private final int[] vacateSeen;
+    private int stamp;
+    private int vacateStamp;
+
+    private final int[] body;
+    private final int[] virtualBody;
+
+    // Current food plan: path cells from the first step to the food
+    private final int[] plan;
+    private int planLength;
+    private int planIndex;
+    private int planFood = -1;
+
+    private long searches;
+
+    // Tick at which the current food appeared, to detect endless tail chasing
+    private int lastFood = -1;
+    private long lastMeal;
+
+    public SnakeAutopilot(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        if ((long) columns * rows > MAX_CELLS) {
+            throw new IllegalArgumentException("Autopilot supports at most " + MAX_CELLS + " cells");
+        }
+        this.cells = columns * rows;
+        this.cycle = buildCycle(columns, rows);
+        queue = new int[cells];
+        parent = new int[cells];
+        distance = new int[cells];
+        seen = new int[cells];
+        vacate = new int[cells];
+        vacateSeen = new int[cells];
+        body = new int[cells];
+        virtualBody = new int[cells];
+        plan = new int[cells];
+    }
+
+    public SnakeAutopilot(SnakeEngine engine) {
+        this(engine.getColumns(), engine.getRows());
+    }
+
+    /** Full path searches run so far, for comparing against one per tick. */
+    public long getSearches() {
+        return searches;
+    }
+
+    @Override
+    public int steer(SnakeEngine engine) {
+        SnakeBody snake = engine.getSnake();
+        int head = snake.head();
+        int food = engine.getFood();
+        if (food != lastFood || engine.getTicks() < lastMeal) {
+            lastFood = food;
+            lastMeal = engine.getTicks();
+        }
+
+        // Replay the current plan while it still applies
+        if (food == planFood && planIndex < planLength && isNeighbour(head, plan[planIndex])
+                && isEnterable(engine, plan[planIndex])) {
+            return directionTo(head, plan[planIndex++]);
+        }
+        planFood = -1;
+        if (food < 0) {
+            return -1;
+        }
+
+        int length = copyBody(snake, body);
+        boolean growing = engine.isGrowing();
+        int steps = search(body, length, growing, head, food, 0, behind(engine));
+        if (steps > 0) {
+            for (int c = food, i = steps - 1; i >= 0; i--) {
+                plan[i] = c;
+                c = parent[c];
+            }
+        }
+        if (steps > 0 && isSafeAfter(length, growing, steps)) {
+            planLength = steps;
+            planIndex = 0;
+            planFood = food;
+            return directionTo(head, plan[planIndex++]);
+        }
+
+        // Stalled for too long: take the risky path rather than circle forever
+        if (steps > 0 && engine.getTicks() - lastMeal > STALL_FACTOR * cells) {
+            planLength = steps;
+            planIndex = 0;
+            planFood = food;
+            return directionTo(head, plan[planIndex++]);
+        }
+
+        // No safe food path: follow the tail until one opens up, taking the
+        // longest way round so the body uncoils instead of circling in place
+        if (length > 1) {
+            int tail = body[length - 1];
+            int best = -1;
+            int bestDistance = 0;
+            int x = head % columns;
+            int y = head / columns;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + SnakeInputQueue.dx(dir);
+                int ny = y + SnakeInputQueue.dy(dir);
+                if (nx < 0 || nx >= columns || ny < 0 || ny >= rows) {
+                    continue;
+                }
+                int n = ny * columns + nx;
+                if (!isEnterable(engine, n)) {
+                    continue;
+                }
+                // Stepping onto the food delays the tail by a move, conservatively from now
+                int d = n == tail ? 1 : search(body, length, growing || n == food, n, tail, 1, -1);
+                if (d > bestDistance) {
+                    bestDistance = d;
+                    best = dir;
+                }
+            }
+            if (best >= 0) {
+                return best;
+            }
+        }
+        if (cycle != null && isEnterable(engine, cycle[head])) {
+            return directionTo(head, cycle[head]);
+        }
+        return roomiestMove(engine, head);
+    }
+
+    // Copies the body head first and returns its length
+    private static int copyBody(SnakeBody snake, int[] out) {
+        int length = snake.length();
+        for (int i = 0; i < length; i++) {
+            out[i] = snake.get(i);
+        }
+        return length;
+    }
+
+    /**
+     * Breadth-first search from start to goal around a body (head first) whose
+     * segments clear as the snake moves. Fills {@code parent} and returns the
+     * number of moves, or -1 if the goal cannot be reached.
+     */
+    private int search(int[] segments, int length, boolean growing, int start, int goal) {
+        return search(segments, length, growing, start, goal, 0, -1);
+    }
+
+    // As above, with start reached after startDistance moves and the first step never to the cell blocked
+    private int search(int[] segments, int length, boolean growing, int start, int goal, int startDistance,
+                       int blocked) {
+        searches++;
+        markVacateTimes(segments, length, growing);
+        stamp++;
+        int headIndex = 0;
+        int tailIndex = 0;
+        queue[tailIndex++] = start;
+        seen[start] = stamp;
+        distance[start] = startDistance;
+        while (headIndex < tailIndex) {
+            int c = queue[headIndex++];
+            int d = distance[c] + 1;
+            int x = c % columns;
+            int y = c / columns;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + SnakeInputQueue.dx(dir);
+                int ny = y + SnakeInputQueue.dy(dir);
+                if (nx < 0 || nx >= columns || ny < 0 || ny >= rows) {
+                    continue;
+                }
+                int n = ny * columns + nx;
+                if (seen[n] == stamp || (vacateSeen[n] == vacateStamp && vacate[n] > d)
+                        || (n == blocked && c == start)) {
+                    continue;
+                }
+                seen[n] = stamp;
+                parent[n] = c;
+                distance[n] = d;
+                if (n == goal) {
+                    return d;
+                }
+                queue[tailIndex++] = n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves after which each body cell is free: the last segment after one
+     * move, or two if growing. The neck is never a first step, since that
+     * would reverse the snake.
+     */
+    private void markVacateTimes(int[] segments, int length, boolean growing) {
+        vacateStamp++;
+        int delay = growing ? 1 : 0;
+        for (int i = 0; i < length; i++) {
+            int c = segments[i];
+            vacateSeen[c] = vacateStamp;
+            vacate[c] = length - i + delay;
+        }
+        if (length > 1) {
+            vacate[segments[1]] = Math.max(2, vacate[segments[1]]);
+        }
+    }
+
+    /**
+     * Checks that after walking the planned path to the food, the snake
+     * could still reach its own tail. Builds the body it would have on
+     * arrival: the path cells newest first, then what is left of the old body.
+     */
+    private boolean isSafeAfter(int length, boolean growing, int steps) {
+        int newLength = growing ? length + 1 : length;
+        int n = 0;
+        while (n < steps && n < newLength) {
+            virtualBody[n] = plan[steps - 1 - n];
+            n++;
+        }
+        for (int i = 0; n < newLength; i++) {
+            virtualBody[n++] = body[i];
+        }
+        if (newLength == 1) {
+            return true;
+        }
+        int tail = virtualBody[newLength - 1];
+        return search(virtualBody, newLength, true, virtualBody[0], tail) > 0;
+    }
+
+    private int roomiestMove(SnakeEngine engine, int head) {
+        int best = -1;
+        int bestRoom = -1;
+        int x = head % columns;
+        int y = head / columns;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + SnakeInputQueue.dx(dir);
+            int ny = y + SnakeInputQueue.dy(dir);
+            if (nx < 0 || nx >= columns || ny < 0 || ny >= rows) {
+                continue;
+            }
+            int n = ny * columns + nx;
+            if (!isEnterable(engine, n)) {
+                continue;
+            }
+            int room = floodFill(engine.getSnake(), n);
+            if (room > bestRoom) {
+                bestRoom = room;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    // Free cells reachable from start, counting start
+    private int floodFill(SnakeBody snake, int start) {
+        stamp++;
+        int headIndex = 0;
+        int tailIndex = 0;
+        queue[tailIndex++] = start;
+        seen[start] = stamp;
+        while (headIndex < tailIndex) {
+            int c = queue[headIndex++];
+            int x = c % columns;
+            int y = c / columns;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + SnakeInputQueue.dx(dir);
+                int ny = y + SnakeInputQueue.dy(dir);
+                if (nx < 0 || nx >= columns || ny < 0 || ny >= rows) {
+                    continue;
+                }
+                int n = ny * columns + nx;
+                if (seen[n] != stamp && !snake.isOccupied(n)) {
+                    seen[n] = stamp;
+                    queue[tailIndex++] = n;
+                }
+            }
+        }
+        return tailIndex;
+    }
+
+    // Whether the head can move into the cell next tick
+    private boolean isEnterable(SnakeEngine engine, int c) {
+        SnakeBody snake = engine.getSnake();
+        if (c == behind(engine)) {
+            return false;
+        }
+        return !snake.isOccupied(c) || (c == snake.tail() && !engine.isGrowing() && snake.length() > 2);
+    }
+
+    // The cell directly behind the head, which the engine never turns back into, or -1
+    private int behind(SnakeEngine engine) {
+        int head = engine.getSnake().head();
+        int back = SnakeInputQueue.opposite(engine.getDirection());
+        int x = head % columns + SnakeInputQueue.dx(back);
+        int y = head / columns + SnakeInputQueue.dy(back);
+        return x < 0 || x >= columns || y < 0 || y >= rows ? -1 : y * columns + x;
+    }
+
+    private boolean isNeighbour(int a, int b) {
+        int dx = Math.abs(a % columns - b % columns);
+        int dy = Math.abs(a / columns - b / columns);
+        return dx + dy == 1;
+    }
+
+    private int directionTo(int from, int to) {
+        int dx = to % columns - from % columns;
+        if (dx == 1) {
+            return SnakeInputQueue.RIGHT;
+        }
+        if (dx == -1) {
+            return SnakeInputQueue.LEFT;
+        }
+        return to > from ? SnakeInputQueue.DOWN : SnakeInputQueue.UP;
+    }
+
+    /**
+     * Successor table of a Hamiltonian cycle: along the top row, zigzag back
+     * through the other columns and return up the first column. Needs an even
+     * number of rows (or of columns, by transposing); null otherwise.
+     */
+    static int[] buildCycle(int columns, int rows) {
+        boolean transpose = rows % 2 != 0;
+        int w = transpose ? rows : columns;
+        int h = transpose ? columns : rows;
+        if (h % 2 != 0 || w < 2) {
+            return null;
+        }
+        int[] order = new int[w * h];
+        int n = 0;
+        for (int x = 0; x < w; x++) {
+            order[n++] = index(x, 0, columns, transpose);
+        }
+        for (int y = 1; y < h; y++) {
+            if (y % 2 == 1) {
+                for (int x = w - 1; x >= 1; x--) {
+                    order[n++] = index(x, y, columns, transpose);
+                }
+            } else {
+                for (int x = 1; x < w; x++) {
+                    order[n++] = index(x, y, columns, transpose);
+                }
+            }
+        }
+        for (int y = h - 1; y >= 1; y--) {
+            order[n++] = index(0, y, columns, transpose);
+        }
+        int[] next = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            next[order[i]] = order[(i + 1) % order.length];
+        }
+        return next;
+    }
+
+    private static int index(int x, int y, int columns, boolean transpose) {
+        return transpose ? x * columns + y : y * columns + x;
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Headless batch runner for Snake: plays many games with a computer
+ * controller across a ForkJoinPool and reports the score distribution and
+ * throughput.
+ *
+ * Every game gets its own SplittableRandom seeded from one root seed by game
+ * index, so a batch is reproducible whatever the thread count or scheduling.
+ * Each leaf task reuses one engine and controller for all of its games.
+ *
+ * <pre>
+ * java SnakeBatch &lt;games&gt; [columns rows] [seed]
+ * </pre>
+ */
+public class SnakeBatch {
+    private static final int GAMES_PER_TASK = 4;
+    private static final int HISTOGRAM_BUCKETS = 10;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Per-game outcomes of a batch, indexed by game. */
+    public static final class Result {
+        public final int columns;
+        public final int rows;
+        public final int[] scores;
+        public final long[] ticks;
+        public final boolean[] cutOff;
+        public final long elapsedNanos;
+
+        Result(int columns, int rows, int[] scores, long[] ticks, boolean[] cutOff, long elapsedNanos) {
+            this.columns = columns;
+            this.rows = rows;
+            this.scores = scores;
+            this.ticks = ticks;
+            this.cutOff = cutOff;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long totalTicks() {
+            long total = 0;
+            for (long t : ticks) {
+                total += t;
+            }
+            return total;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1 && args.length != 2 && args.length != 3 && args.length != 4) {
+            System.err.println("Usage: java SnakeBatch <games> [columns rows] [seed]");
+            System.exit(2);
+        }
+        int games = Integer.parseInt(args[0]);
+        int columns = args.length >= 3 ? Integer.parseInt(args[1]) : 40;
+        int rows = args.length >= 3 ? Integer.parseInt(args[2]) : 28;
+        long seed = args.length == 2 ? Long.parseLong(args[1])
+                : args.length == 4 ? Long.parseLong(args[3]) : System.nanoTime();
+        System.out.printf("%,d games on %d x %d, seed %d, %d threads%n",
+                games, columns, rows, seed, ForkJoinPool.commonPool().getParallelism());
+        report(run(games, columns, rows, seed, SnakeAutopilot::new, defaultTickLimit(columns, rows),
+                ForkJoinPool.commonPool()));
+    }
+
+    /** Tick cap per game, well beyond what a game that is still eating needs. */
+    public static long defaultTickLimit(int columns, int rows) {
+        long cells = (long) columns * rows;
+        return 16 * cells * cells;
+    }
+
+    /**
+     * Plays {@code games} games, each stopped after {@code maxTicks} ticks if
+     * it has not ended, with a controller made per worker by {@code controllers}.
+     */
+    public static Result run(int games, int columns, int rows, long seed,
+                             Function<SnakeEngine, SnakeEngine.Controller> controllers,
+                             long maxTicks, ForkJoinPool pool) {
+        Result result = new Result(columns, rows, new int[games], new long[games], new boolean[games], 0);
+        long start = System.nanoTime();
+        pool.invoke(new GamesTask(result, 0, games, seed, controllers, maxTicks));
+        return new Result(columns, rows, result.scores, result.ticks, result.cutOff, System.nanoTime() - start);
+    }
+
+    /**
+     * Game {@code index}'s generator, seeded with the index-th output of
+     * {@code new SplittableRandom(seed)} (same increment and mixing function),
+     * so any game can be recreated on its own.
+     */
+    static SplittableRandom gameRandom(long seed, int index) {
+        long z = seed + (index + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    @SuppressWarnings("serial")
+    private static final class GamesTask extends RecursiveAction {
+        private final Result result;
+        private final int lo;
+        private final int hi;
+        private final long seed;
+        private final Function<SnakeEngine, SnakeEngine.Controller> controllers;
+        private final long maxTicks;
+
+        GamesTask(Result result, int lo, int hi, long seed,
+                  Function<SnakeEngine, SnakeEngine.Controller> controllers, long maxTicks) {
+            this.result = result;
+            this.lo = lo;
+            this.hi = hi;
+            this.seed = seed;
+            this.controllers = controllers;
+            this.maxTicks = maxTicks;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GAMES_PER_TASK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new GamesTask(result, lo, mid, seed, controllers, maxTicks),
+                        new GamesTask(result, mid, hi, seed, controllers, maxTicks));
+                return;
+            }
+            SnakeEngine engine = new SnakeEngine(result.columns, result.rows, gameRandom(seed, lo));
+            engine.setController(controllers.apply(engine));
+            for (int game = lo; game < hi; game++) {
+                engine.reset(gameRandom(seed, game));
+                long ticks = SnakeLoop.runHeadless(engine, 0, maxTicks);
+                result.scores[game] = engine.getScore();
+                result.ticks[game] = ticks;
+                result.cutOff[game] = !engine.isOver();
+            }
+        }
+    }
+
+    public static void report(Result result) {
+        int games = result.scores.length;
+        if (games == 0) {
+            return;
+        }
+        int[] sorted = result.scores.clone();
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (int s : sorted) {
+            mean += s;
+        }
+        mean /= games;
+        double variance = 0;
+        for (int s : sorted) {
+            variance += (s - mean) * (s - mean);
+        }
+        int maxScore = result.columns * result.rows - 1;
+        int filled = 0;
+        int cutOff = 0;
+        for (int i = 0; i < games; i++) {
+            if (result.scores[i] == maxScore) {
+                filled++;
+            }
+            if (result.cutOff[i]) {
+                cutOff++;
+            }
+        }
+
+        double seconds = result.elapsedNanos / 1e9;
+        long ticks = result.totalTicks();
+        System.out.printf("Score: mean %.1f, sd %.1f, min %d, p10 %d, p50 %d, p90 %d, p99 %d, max %d (of %d)%n",
+                mean, Math.sqrt(variance / games), sorted[0], percentile(sorted, 10), percentile(sorted, 50),
+                percentile(sorted, 90), percentile(sorted, 99), sorted[games - 1], maxScore);
+        System.out.printf("Filled the board: %,d, cut off at the tick limit: %,d%n", filled, cutOff);
+
+        int[] buckets = new int[HISTOGRAM_BUCKETS];
+        for (int s : sorted) {
+            buckets[Math.min(HISTOGRAM_BUCKETS - 1, (int) ((long) s * HISTOGRAM_BUCKETS / (maxScore + 1)))]++;
+        }
+        for (int b = 0; b < HISTOGRAM_BUCKETS; b++) {
+            System.out.printf("  %5d-%-5d %,8d%n", (int) ((long) b * (maxScore + 1) / HISTOGRAM_BUCKETS),
+                    (int) ((long) (b + 1) * (maxScore + 1) / HISTOGRAM_BUCKETS) - 1, buckets[b]);
+        }
+        System.out.printf("%,d games, %,d ticks in %.2f s: %,.1f games/s, %,.0f ticks/s%n",
+                games, ticks, seconds, games / seconds, ticks / seconds);
+    }
+
+    private static int percentile(int[] sorted, int p) {
+        return sorted[(int) Math.min(sorted.length - 1, (long) sorted.length * p / 100)];
+    }
+}
@@ -0,0 +1,259 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Snake segments as cell indices (y * columns + x) in an int ring buffer,
+ * head first, plus an occupancy bitset over the grid. Moving the head and
+ * tail updates both in O(1), so self-collision and "is this cell free" are
+ * single bit tests whatever the snake's length. The ring starts small and
+ * doubles as the snake grows.
+ *
+ * Grids up to {@link #DENSE_LIMIT} cells keep one flat bitset and a
+ * {@link FreeCellIndex} of the remaining cells for O(1) food placement.
+ * Larger worlds split the bitset into 64 x 64 chunks (one long per chunk row)
+ * that are allocated when the snake first enters them and dropped when it
+ * leaves, and place food by rejection sampling, which on a board that large
+ * almost always succeeds first time. Memory then follows the snake's length,
+ * not the world size.
+ */
+public class SnakeBody {
+    public static final int DENSE_LIMIT = 1 << 22;
+    public static final int CHUNK_BITS = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int columns;
+    private final int gridCells;
+    private int[] cells;
+    private int head;
+    private int length;
+
+    // Dense grids
+    private final long[] occupied;
+    private final FreeCellIndex free;
+
+    // Chunked grids: chunks[cy * chunkColumns + cx], with live segment counts
+    private final int chunkColumns;
+    private final long[][] chunks;
+    private final int[] chunkCounts;
+    private int liveChunks;
+
+    public SnakeBody(int columns, int rows) {
+        long total = (long) columns * rows;
+        if (columns < 1 || rows < 1 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid must have between 1 and " + Integer.MAX_VALUE + " cells");
+        }
+        this.columns = columns;
+        this.gridCells = (int) total;
+        this.cells = new int[Math.min(gridCells, INITIAL_CAPACITY)];
+        if (gridCells <= DENSE_LIMIT) {
+            occupied = new long[(gridCells + 63) >>> 6];
+            free = new FreeCellIndex(gridCells);
+            chunkColumns = 0;
+            chunks = null;
+            chunkCounts = null;
+        } else {
+            occupied = null;
+            free = null;
+            chunkColumns = (columns + CHUNK_SIZE - 1) >> CHUNK_BITS;
+            int chunkRows = (rows + CHUNK_SIZE - 1) >> CHUNK_BITS;
+            chunks = new long[chunkColumns * chunkRows][];
+            chunkCounts = new int[chunks.length];
+        }
+    }
+
+    public boolean isChunked() {
+        return chunks != null;
+    }
+
+    /** Chunks currently allocated; 0 for dense grids. */
+    public int getLiveChunks() {
+        return liveChunks;
+    }
+
+    /**
+     * Empties the grid. The free-cell index goes back to its initial order,
+     * so food drawn from it depends only on the moves since, not on earlier
+     * games.
+     */
+    public void clear() {
+        for (int i = 0; i < length; i++) {
+            setOccupied(get(i), false);
+        }
+        if (free != null) {
+            free.reset();
+        }
+        head = 0;
+        length = 0;
+    }
+
+    /**
+     * Replaces the snake with {@code segments} (head first). The free-cell
+     * index is left in the order {@link #reindex} gives for that body.
+     */
+    public void restore(int[] segments) {
+        clear();
+        if (cells.length < segments.length) {
+            cells = new int[segments.length];
+        }
+        length = segments.length;
+        for (int i = 0; i < length; i++) {
+            cells[i] = segments[i];
+            setOccupied(segments[i], true);
+        }
+    }
+
+    /**
+     * Rebuilds the free-cell index from its initial order by taking out the
+     * body head first, so its sampling order depends only on the body.
+     * O(grid cells); nothing to do on chunked grids.
+     */
+    public void reindex() {
+        if (free != null) {
+            free.reset();
+            for (int i = 0; i < length; i++) {
+                free.remove(get(i));
+            }
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Segment i counted from the head. */
+    public int get(int i) {
+        int index = head + i;
+        return index < cells.length ? cells[index] : cells[index - cells.length];
+    }
+
+    public int head() {
+        return cells[head];
+    }
+
+    public int tail() {
+        return get(length - 1);
+    }
+
+    public void addHead(int cell) {
+        if (length == cells.length) {
+            if (length == gridCells) {
+                throw new IllegalStateException("Snake already fills the grid");
+            }
+            grow();
+        }
+        head = head == 0 ? cells.length - 1 : head - 1;
+        cells[head] = cell;
+        length++;
+        setOccupied(cell, true);
+    }
+
+    /** Removes the tail segment and returns its cell. */
+    public int removeTail() {
+        int cell = tail();
+        length--;
+        setOccupied(cell, false);
+        return cell;
+    }
+
+    // Unrolls the ring into an array twice the size, head first
+    private void grow() {
+        int[] bigger = new int[(int) Math.min(gridCells, 2L * cells.length)];
+        for (int i = 0; i < length; i++) {
+            bigger[i] = get(i);
+        }
+        cells = bigger;
+        head = 0;
+    }
+
+    public boolean isOccupied(int cell) {
+        if (occupied != null) {
+            return (occupied[cell >>> 6] & (1L << cell)) != 0;
+        }
+        int x = cell % columns;
+        int y = cell / columns;
+        long[] chunk = chunks[(y >> CHUNK_BITS) * chunkColumns + (x >> CHUNK_BITS)];
+        return chunk != null && (chunk[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Occupancy of the 64 cells (x, y) to (x + 63, y) as bits, lowest bit
+     * first; cells past the right edge read as free. Lets a viewport be drawn
+     * a word at a time instead of testing every cell.
+     */
+    public long rowBits(int x, int y) {
+        long bits;
+        if (occupied != null) {
+            long bit = (long) y * columns + x;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            bits = occupied[word] >>> shift;
+            if (shift != 0 && word + 1 < occupied.length) {
+                bits |= occupied[word + 1] << (64 - shift);
+            }
+        } else {
+            int offset = x & (CHUNK_SIZE - 1);
+            int row = y & (CHUNK_SIZE - 1);
+            int base = (y >> CHUNK_BITS) * chunkColumns;
+            int cx = x >> CHUNK_BITS;
+            long[] chunk = chunks[base + cx];
+            bits = chunk != null ? chunk[row] >>> offset : 0;
+            if (offset != 0 && cx + 1 < chunkColumns) {
+                long[] next = chunks[base + cx + 1];
+                if (next != null) {
+                    bits |= next[row] << (CHUNK_SIZE - offset);
+                }
+            }
+        }
+        int width = columns - x;
+        return width >= 64 ? bits : bits & ((1L << width) - 1);
+    }
+
+    /** A uniformly random cell the snake does not cover, or -1 if it covers them all. */
+    public int randomFreeCell(RandomGenerator random) {
+        if (free != null) {
+            return free.size() == 0 ? -1 : free.get(random.nextInt(free.size()));
+        }
+        if (length == gridCells) {
+            return -1;
+        }
+        while (true) {
+            int cell = random.nextInt(gridCells);
+            if (!isOccupied(cell)) {
+                return cell;
+            }
+        }
+    }
+
+    private void setOccupied(int cell, boolean value) {
+        if (occupied != null) {
+            if (value) {
+                occupied[cell >>> 6] |= 1L << cell;
+                free.remove(cell);
+            } else {
+                occupied[cell >>> 6] &= ~(1L << cell);
+                free.add(cell);
+            }
+            return;
+        }
+        int x = cell % columns;
+        int y = cell / columns;
+        int index = (y >> CHUNK_BITS) * chunkColumns + (x >> CHUNK_BITS);
+        long[] chunk = chunks[index];
+        if (value) {
+            if (chunk == null) {
+                chunk = new long[CHUNK_SIZE];
+                chunks[index] = chunk;
+                liveChunks++;
+            }
+            chunk[y & (CHUNK_SIZE - 1)] |= 1L << x;
+            chunkCounts[index]++;
+        } else {
+            chunk[y & (CHUNK_SIZE - 1)] &= ~(1L << x);
+            if (--chunkCounts[index] == 0) {
+                chunks[index] = null;
+                liveChunks--;
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Snake rules and state with no Swing dependency, so games can run headless
+ * or behind the panel. Each {@link #tick()} takes one turn from the attached
+ * {@link Controller}, or from the input queue when there is none, and moves
+ * the snake one cell. Growth is deferred as in the original game: when the
+ * head sits on the food, the next move keeps the tail.
+ */
+public class SnakeEngine implements SnakeLoop.Simulation {
+    /** Chooses the direction for the coming tick. */
+    public interface Controller {
+        /** Returns a direction from {@link SnakeInputQueue}, or -1 to keep going straight. */
+        int steer(SnakeEngine engine);
+    }
+
+    /** Notified of board changes, for incremental drawing. */
+    public interface Listener {
+        /** The head left {@code oldHead}; {@code removedTail} is the vacated cell, or -1 if the snake grew. */
+        void moved(int oldHead, int removedTail);
+
+        void foodPlaced(int oldFood, int food);
+    }
+
+    /**
+     * Engine state at the start of a tick, excluding the food generator. Only
+     * a replayable engine's snapshots restore food placement exactly, and only
+     * when taken on a multiple of {@link #REINDEX_INTERVAL}: the free-cell
+     * order is then a function of the body and is rebuilt from it.
+     */
+    public static final class Snapshot {
+        private final int[] body;
+        private final int direction;
+        private final int food;
+        private final int lastHead;
+        private final int lastTail;
+        private final boolean over;
+        private final long ticks;
+
+        private Snapshot(SnakeEngine engine) {
+            SnakeBody snake = engine.snake;
+            body = new int[snake.length()];
+            for (int i = 0; i < body.length; i++) {
+                body[i] = snake.get(i);
+            }
+            direction = engine.direction;
+            food = engine.food;
+            lastHead = engine.lastHead;
+            lastTail = engine.lastTail;
+            over = engine.over;
+            ticks = engine.ticks;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+    }
+
+    public static final int START_X = 5;
+    public static final int START_Y = 5;
+    public static final int REINDEX_INTERVAL = 1024;
+
+    private final int columns;
+    private final int rows;
+    private final SnakeBody snake;
+    private final SnakeInputQueue input;
+    private RandomGenerator random;
+    private Controller controller;
+    private Listener listener;
+    private SnakeRecording recording;
+    private boolean replayable;
+
+    private int direction;
+    private int food = -1;
+    private int lastHead;
+    private int lastTail = -1;
+    private boolean over;
+    private long ticks;
+
+    public SnakeEngine(int columns, int rows, RandomGenerator random) {
+        if (columns < 2 || rows < 1) {
+            throw new IllegalArgumentException("Board must be at least 2 x 1");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.random = random;
+        this.snake = new SnakeBody(columns, rows);
+        this.input = new SnakeInputQueue(SnakeInputQueue.RIGHT);
+        reset();
+    }
+
+    /** Starts a new game with a one-cell snake heading right. */
+    public void reset() {
+        snake.clear();
+        snake.addHead(cell(Math.min(START_X, columns - 2), Math.min(START_Y, rows - 1)));
+        lastHead = snake.head();
+        lastTail = -1;
+        direction = SnakeInputQueue.RIGHT;
+        input.reset(direction);
+        over = false;
+        ticks = 0;
+        placeFood();
+    }
+
+    /** Starts a new game drawing food from {@code random}. */
+    public void reset(RandomGenerator random) {
+        this.random = random;
+        reset();
+    }
+
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+
+    public Controller getController() {
+        return controller;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Records every turn and the final score into {@code recording}, or stops
+     * recording if null. Recording makes the engine replayable.
+     */
+    public void setRecording(SnakeRecording recording) {
+        this.recording = recording;
+        replayable = recording != null;
+    }
+
+    /**
+     * A replayable engine rebuilds its free-cell index from the body every
+     * {@link #REINDEX_INTERVAL} ticks, so snapshots need not copy the index.
+     * Recorded games and their replays must both be replayable.
+     */
+    public void setReplayable(boolean replayable) {
+        this.replayable = replayable;
+    }
+
+    public SnakeRecording getRecording() {
+        return recording;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Puts the board back as it was when the snapshot was taken. The food
+     * generator is not part of the snapshot, and the listener is not told.
+     */
+    public void restore(Snapshot snapshot) {
+        snake.restore(snapshot.body);
+        direction = snapshot.direction;
+        input.reset(direction);
+        food = snapshot.food;
+        lastHead = snapshot.lastHead;
+        lastTail = snapshot.lastTail;
+        over = snapshot.over;
+        ticks = snapshot.ticks;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int cell(int x, int y) {
+        return y * columns + x;
+    }
+
+    public SnakeBody getSnake() {
+        return snake;
+    }
+
+    /** Queue for player turns; ignored while a controller is attached. */
+    public SnakeInputQueue getInput() {
+        return input;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    /** The food cell, or -1 once the snake fills the board. */
+    public int getFood() {
+        return food;
+    }
+
+    /** True if the next move keeps the tail. */
+    public boolean isGrowing() {
+        return snake.head() == food;
+    }
+
+    public int getLastHead() {
+        return lastHead;
+    }
+
+    public int getLastTail() {
+        return lastTail;
+    }
+
+    public int getScore() {
+        return snake.length() - 1;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public boolean isOver() {
+        return over;
+    }
+
+    @Override
+    public void tick() {
+        if (replayable && ticks % REINDEX_INTERVAL == 0) {
+            snake.reindex();
+        }
+        int turn = controller != null ? controller.steer(this) : input.poll();
+        if (turn >= 0 && turn != SnakeInputQueue.opposite(direction)) {
+            if (turn != direction && recording != null) {
+                recording.turn(ticks, turn);
+            }
+            direction = turn;
+        }
+        ticks++;
+        move();
+        if (over && recording != null) {
+            recording.finish(ticks, getScore());
+        }
+    }
+
+    private void move() {
+        int head = snake.head();
+        int x = head % columns + SnakeInputQueue.dx(direction);
+        int y = head / columns + SnakeInputQueue.dy(direction);
+
+        // game over conditions: walls
+        if (x < 0 || x >= columns || y < 0 || y >= rows) {
+            over = true;
+            return;
+        }
+
+        // eat food: the snake keeps its tail and grows by one
+        boolean grow = head == food;
+
+        // game over conditions: self-collision is a single bit test; the tail
+        // cell is free unless the snake is growing
+        int next = cell(x, y);
+        if (snake.isOccupied(next) && (grow || next != snake.tail())) {
+            over = true;
+            return;
+        }
+        lastTail = grow ? -1 : snake.removeTail();
+        lastHead = head;
+        snake.addHead(next);
+        if (listener != null) {
+            listener.moved(head, lastTail);
+        }
+        if (grow) {
+            placeFood();
+        }
+    }
+
+    private void placeFood() {
+        int old = food;
+        food = snake.randomFreeCell(random);
+        if (food < 0) {
+            over = true;  // the snake fills the board
+        }
+        if (listener != null) {
+            listener.foodPlaced(old, food);
+        }
+    }
+}
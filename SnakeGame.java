@@ -1,49 +1,58 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.util.LinkedList;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
 import javax.swing.*;
 
-public class SnakeGame extends JPanel implements ActionListener, KeyListener {
-    private class Tile {
-        int x;
-        int y;
-
-        Tile(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
-        
-        // Add copy constructor for creating new segments
-        Tile(Tile other) {
-            this.x = other.x;
-            this.y = other.y;
-        }
-    }  
+public class SnakeGame extends JPanel
+        implements SnakeLoop.Simulation, SnakeEngine.Listener, KeyListener, GameLifecycle.Managed {
+    static final long DEFAULT_TICK_NANOS = 100_000_000;
+    static final String REPLAY_FILE = "snake-last.replay";
+    static final int SEEK_TICKS = 50;
 
     int boardWidth;
     int boardHeight;
-    int tileSize = 25;
-    
-    //snake
-    Tile snakeHead;
-    LinkedList<Tile> snakeBody;  // Changed from ArrayList to LinkedList
-
-    //food
-    Tile food;
-    Random random;
-
-    //game logic
-    int velocityX;
-    int velocityY;
-    Timer gameLoop;
-
-    boolean gameOver = false;
+    static final int TILE_SIZE = 25;
+    int tileSize = TILE_SIZE;
+    int columns;
+    int rows;
+
+    //game state and rules; this panel only draws it and feeds it keys
+    SnakeEngine engine;
+    SnakeBody snake;
+    SnakeAutopilot autopilot;
+    boolean autopilotOn;
+    SnakeLoop gameLoop;
+    boolean resumeLoop;
+
+    //every game is recorded so it can be watched again; seeds come from here
+    SplittableRandom seeds = new SplittableRandom();
+    SnakeRecording recording;
+    SnakeReplay replay;
+
+    SnakeRenderer renderer;
+    final Rectangle dirty = new Rectangle();
+
+    //tick, paint and input latency; F3 shows them
+    static final int OVERLAY_MARGIN = 10;
+    final GameMetrics metrics = GameMetrics.forGame("Snake");
+    final Rectangle overlay = new Rectangle();
 
     JButton restartButton;
     JButton exitButton;
+    JButton replayButton;
 
     SnakeGame(int boardWidth, int boardHeight) {
+        this(boardWidth, boardHeight, DEFAULT_TICK_NANOS);
+    }
+
+    SnakeGame(int boardWidth, int boardHeight, long tickNanos) {
+        this(boardWidth, boardHeight, boardWidth / TILE_SIZE, boardHeight / TILE_SIZE, tickNanos);
+    }
+
+    /** A world of columns x rows cells; if it does not fit the panel, the view follows the head. */
+    SnakeGame(int boardWidth, int boardHeight, int columns, int rows, long tickNanos) {
         this.boardWidth = boardWidth;
         this.boardHeight = boardHeight;
         setPreferredSize(new Dimension(this.boardWidth, this.boardHeight));
@@ -53,11 +62,13 @@ public class SnakeGame extends JPanel implements ActionListener, KeyListener {
         restartButton = new JButton("Restart");
         exitButton = new JButton("Go to Home");
 
+        replayButton = new JButton("Watch Replay");
+
         restartButton.setBounds(boardWidth / 2 - 60, boardHeight / 2 - 30, 120, 30);
         exitButton.setBounds(boardWidth / 2 - 60, boardHeight / 2 + 10, 120, 30);
+        replayButton.setBounds(boardWidth / 2 - 60, boardHeight / 2 + 50, 120, 30);
 
-        restartButton.setVisible(false);
-        exitButton.setVisible(false);
+        setButtonsVisible(false);
 
         restartButton.addActionListener(new ActionListener() {
             @Override
@@ -69,137 +80,213 @@ public class SnakeGame extends JPanel implements ActionListener, KeyListener {
         exitButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                Window window = SwingUtilities.getWindowAncestor(SnakeGame.this);
-                if (window instanceof JFrame) {
-                    window.dispose();
+                // Close as the title bar would, so the window's owner decides what happens to it
+                gameLoop.stop();
+                Window window = getWindow();
+                if (window != null) {
+                    window.dispatchEvent(new WindowEvent(window, WindowEvent.WINDOW_CLOSING));
                 }
             }
         });
 
+        replayButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                watchReplay();
+            }
+        });
+
         add(restartButton);
         add(exitButton);
+        add(replayButton);
 
         addKeyListener(this);
         setFocusable(true);
 
-        snakeHead = new Tile(5, 5);
-        snakeBody = new LinkedList<>();  // Initialize as LinkedList
-
-        food = new Tile(10, 10);
-        random = new Random();
-        placeFood();
-
-        velocityX = 1;
-        velocityY = 0;
+        this.columns = columns;
+        this.rows = rows;
+        engine = new SnakeEngine(columns, rows, new SnakeRandom(0));
+        snake = engine.getSnake();
+        newGame();
+        if ((long) columns * rows <= SnakeAutopilot.MAX_CELLS) {
+            autopilot = new SnakeAutopilot(engine);
+        }
+        renderer = new SnakeRenderer(columns, rows, tileSize, snake, boardWidth, boardHeight);
+        engine.setListener(this);
+        overlayBounds();
 
-        gameLoop = new Timer(100, this);
+        gameLoop = new SnakeLoop(this, this::frameRendered, tickNanos);
+        gameLoop.setMetrics(metrics);
         gameLoop.start();
-    }  
+    }
 
     public void paintComponent(Graphics g) {
+        metrics.paintStarted();
         super.paintComponent(g);
         draw(g);
+        metrics.paintEnded();
+        metrics.paintOverlay(g, overlay.x, overlay.y);
     }
 
     public void draw(Graphics g) {
-        // Grid Lines
-        for (int i = 0; i < boardWidth / tileSize; i++) {
-            g.drawLine(i * tileSize, 0, i * tileSize, boardHeight);
-            g.drawLine(0, i * tileSize, boardWidth, i * tileSize);
+        boolean gameOver = engine.isOver();
+        double alpha = gameOver ? 1.0 : gameLoop.alpha();
+        String status = (gameOver ? "Game Over: " : "Score: ") + engine.getScore();
+        if (replay != null) {
+            status = "Replay " + status + " (tick " + engine.getTicks() + ")";
+        } else if (autopilotOn) {
+            status += " (autopilot)";
         }
+        if (renderer.isScrolling() && engine.getFood() >= 0) {
+            // Point the way to food that is usually far off screen
+            int head = snake.head();
+            int food = engine.getFood();
+            status += "   food " + describeOffset(food % columns - head % columns, "right", "left")
+                    + ", " + describeOffset(food / columns - head / columns, "down", "up");
+        }
+        renderer.paint(g, this, engine.getFood(), engine.getLastHead(), engine.getLastTail(), alpha,
+                status, gameOver ? Color.red : Color.white);
+    }
 
-        // Food
-        g.setColor(Color.red);
-        g.fill3DRect(food.x * tileSize, food.y * tileSize, tileSize, tileSize, true);
-
-        // Snake Head
-        g.setColor(Color.green);
-        g.fill3DRect(snakeHead.x * tileSize, snakeHead.y * tileSize, tileSize, tileSize, true);
+    private static String describeOffset(int cells, String positive, String negative) {
+        return cells >= 0 ? cells + " " + positive : -cells + " " + negative;
+    }
 
-        // Snake Body
-        for (Tile snakePart : snakeBody) {
-            g.fill3DRect(snakePart.x * tileSize, snakePart.y * tileSize, tileSize, tileSize, true);
+    // Called after each frame's ticks: repaint only what moved
+    private void frameRendered() {
+        if (engine.isOver() && !restartButton.isVisible()) {
+            if (replay == null) {
+                saveRecording();
+            }
+            setButtonsVisible(true);
+            renderer.markStatusDirty();
         }
-
-        // Score
-        g.setFont(new Font("Arial", Font.PLAIN, 16));
-        if (gameOver) {
-            g.setColor(Color.red);
-            g.drawString("Game Over: " + snakeBody.size(), tileSize - 16, tileSize);
-            restartButton.setVisible(true);
-            exitButton.setVisible(true);
-        } else {
-            g.setColor(Color.white);
-            g.drawString("Score: " + snakeBody.size(), tileSize - 16, tileSize);
-            restartButton.setVisible(false);
-            exitButton.setVisible(false);
+        markInterpolated();
+        Rectangle r = renderer.takeDirty(dirty);
+        if (!r.isEmpty()) {
+            repaint(r);
+        }
+        if (metrics.isEnabled()) {
+            repaint(overlayBounds());
         }
     }
 
-    public void placeFood() {
-        food.x = random.nextInt(boardWidth / tileSize);
-        food.y = random.nextInt(boardHeight / tileSize);
+    private Rectangle overlayBounds() {
+        return GameMetrics.overlayBounds(OVERLAY_MARGIN, boardHeight - GameMetrics.OVERLAY_HEIGHT - OVERLAY_MARGIN,
+                overlay);
     }
 
-    public void move() {
-        // eat food
-        if (collision(snakeHead, food)) {
-            // Add new segment at the head's position
-            snakeBody.addFirst(new Tile(snakeHead.x, snakeHead.y));
-            placeFood();
-        } else if (!snakeBody.isEmpty()) {
-            // Move the tail to the head's position
-            Tile tail = snakeBody.removeLast();
-            tail.x = snakeHead.x;
-            tail.y = snakeHead.y;
-            snakeBody.addFirst(tail);
-        }
+    // The tiles the interpolated head and tail are sliding across
+    private void markInterpolated() {
+        renderer.markDirty(engine.getLastHead());
+        renderer.markDirty(snake.head());
+        renderer.markDirty(engine.getLastTail());
+        renderer.markDirty(snake.tail());
+    }
 
-        // move snake head
-        snakeHead.x += velocityX;
-        snakeHead.y += velocityY;
+    int score() {
+        return engine.getScore();
+    }
 
-        // game over conditions
-        for (Tile snakePart : snakeBody) {
-            if (collision(snakeHead, snakePart)) {
-                gameOver = true;
-                break;
-            }
+    @Override
+    public Window getWindow() {
+        return SwingUtilities.getWindowAncestor(this);
+    }
+
+    @Override
+    public void suspend() {
+        resumeLoop = gameLoop.isRunning();
+        gameLoop.stop();
+    }
+
+    @Override
+    public void resume() {
+        if (resumeLoop) {
+            resumeLoop = false;
+            gameLoop.start();
         }
+    }
+
+    @Override
+    public void relaunch() {
+        resumeLoop = false;
+        restartGame();
+        requestFocusInWindow();
+    }
 
-        if (snakeHead.x * tileSize < 0 || snakeHead.x * tileSize > boardWidth || 
-            snakeHead.y * tileSize < 0 || snakeHead.y * tileSize > boardHeight) {
-            gameOver = true;
+    @Override
+    public void release() {
+        gameLoop.stop();
+        gameLoop.setMetrics(null);
+        engine.setListener(null);
+        renderer.release();
+    }
+
+    @Override
+    public void tick() {
+        // Erase the overlays where the last frame left them
+        markInterpolated();
+        if (replay != null) {
+            replay.tick();
+            renderer.markStatusDirty();
+        } else {
+            engine.tick();
         }
     }
 
-    public boolean collision(Tile tile1, Tile tile2) {
-        return tile1.x == tile2.x && tile1.y == tile2.y;
+    @Override
+    public boolean isOver() {
+        return engine.isOver();
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        move();
-        repaint();
-        if (gameOver) {
-            gameLoop.stop();
+    public void moved(int oldHead, int removedTail) {
+        renderer.moved(oldHead, removedTail);
+        if (removedTail < 0) {
+            renderer.markStatusDirty();
         }
     }
 
+    @Override
+    public void foodPlaced(int oldFood, int food) {
+        renderer.markDirty(oldFood);
+        renderer.markDirty(food);
+    }
+
     @Override
     public void keyPressed(KeyEvent e) {
-        if (e.getKeyCode() == KeyEvent.VK_UP && velocityY != 1) {
-            velocityX = 0;
-            velocityY = -1;
-        } else if (e.getKeyCode() == KeyEvent.VK_DOWN && velocityY != -1) {
-            velocityX = 0;
-            velocityY = 1;
-        } else if (e.getKeyCode() == KeyEvent.VK_LEFT && velocityX != 1) {
-            velocityX = -1;
-            velocityY = 0;
-        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT && velocityX != -1) {
-            velocityX = 1;
-            velocityY = 0;
+        metrics.inputReceived();
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            metrics.setEnabled(!metrics.isEnabled());
+            repaint(overlayBounds());
+            return;
+        }
+        if (replay != null) {
+            // Left/right step through the replay, End jumps to the finish
+            if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+                seekReplay(engine.getTicks() - SEEK_TICKS);
+            } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+                seekReplay(engine.getTicks() + SEEK_TICKS);
+            } else if (e.getKeyCode() == KeyEvent.VK_END) {
+                seekReplay(Long.MAX_VALUE);
+            }
+            return;
+        }
+        SnakeInputQueue input = engine.getInput();
+        if (e.getKeyCode() == KeyEvent.VK_UP) {
+            input.offer(SnakeInputQueue.UP);
+        } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+            input.offer(SnakeInputQueue.DOWN);
+        } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            input.offer(SnakeInputQueue.LEFT);
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            input.offer(SnakeInputQueue.RIGHT);
+        } else if (e.getKeyCode() == KeyEvent.VK_A && autopilot != null) {
+            // Toggle the autopilot; the player's queue resumes from the current heading
+            autopilotOn = !autopilotOn;
+            engine.setController(autopilotOn ? autopilot : null);
+            engine.getInput().reset(engine.getDirection());
+            renderer.markStatusDirty();
         }
     }
 
@@ -210,12 +297,58 @@ public class SnakeGame extends JPanel implements ActionListener, KeyListener {
     public void keyReleased(KeyEvent e) {}
 
     public void restartGame() {
-        snakeHead = new Tile(5, 5);
-        snakeBody.clear();  // Clear the LinkedList
-        placeFood();
-        velocityX = 1;
-        velocityY = 0;
-        gameOver = false;
+        newGame();
+        setButtonsVisible(false);
+        renderer.invalidate();
+        repaint();
+        gameLoop.start();
+    }
+
+    // Fresh seed and recording; also leaves replay mode
+    private void newGame() {
+        replay = null;
+        long seed = seeds.nextLong();
+        engine.reset(new SnakeRandom(seed));
+        engine.setController(autopilotOn ? autopilot : null);
+        recording = new SnakeRecording(columns, rows, seed);
+        engine.setRecording(recording);
+    }
+
+    private void saveRecording() {
+        try {
+            recording.write(Paths.get(REPLAY_FILE));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void watchReplay() {
+        replay = new SnakeReplay(recording, engine);
+        setButtonsVisible(false);
+        renderer.invalidate();
+        repaint();
         gameLoop.start();
+        requestFocusInWindow();
+    }
+
+    private void seekReplay(long tick) {
+        replay.seek(Math.min(tick, recording.getEndTick()));
+        renderer.invalidate();
+        repaint();
+        if (engine.isOver()) {
+            gameLoop.stop();
+            setButtonsVisible(true);
+        } else {
+            setButtonsVisible(false);
+            if (!gameLoop.isRunning()) {
+                gameLoop.start();
+            }
+        }
+    }
+
+    private void setButtonsVisible(boolean visible) {
+        restartButton.setVisible(visible);
+        exitButton.setVisible(visible);
+        replayButton.setVisible(visible);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+/**
+ * Bounded FIFO of direction changes waiting for the next simulation ticks.
+ * One entry is consumed per tick, so quick key sequences such as up-left are
+ * played out over consecutive ticks instead of the second press overwriting
+ * the first. A press that repeats or reverses the last queued direction is
+ * ignored, as is anything beyond {@link #CAPACITY} pending presses. Not
+ * thread-safe: offer and poll from the same thread (the EDT for the game).
+ */
+public class SnakeInputQueue {
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+
+    public static final int CAPACITY = 4;
+
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+
+    private final byte[] pending = new byte[CAPACITY];
+    private int first;
+    private int count;
+    private int last;
+
+    public SnakeInputQueue(int direction) {
+        reset(direction);
+    }
+
+    public static int dx(int direction) {
+        return DX[direction];
+    }
+
+    public static int dy(int direction) {
+        return DY[direction];
+    }
+
+    public static int opposite(int direction) {
+        return (direction + 2) & 3;
+    }
+
+    /** Empties the queue; {@code direction} is what the snake is heading now. */
+    public void reset(int direction) {
+        first = 0;
+        count = 0;
+        last = direction;
+    }
+
+    /** Queues a turn; returns false if it was dropped. */
+    public boolean offer(int direction) {
+        if (count == CAPACITY || direction == last || direction == opposite(last)) {
+            return false;
+        }
+        pending[(first + count) & (CAPACITY - 1)] = (byte) direction;
+        count++;
+        last = direction;
+        return true;
+    }
+
+    /** Next queued direction, or -1 if none. */
+    public int poll() {
+        if (count == 0) {
+            return -1;
+        }
+        int direction = pending[first];
+        first = (first + 1) & (CAPACITY - 1);
+        count--;
+        return direction;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.Timer;
+
+/**
+ * Fixed-timestep driver for a tick-based simulation. In the window, a Swing
+ * timer fires once per frame on the Event Dispatch Thread, runs however many
+ * whole ticks have become due since the last frame and then asks for a repaint
+ * with {@link #alpha()}, the fraction of the next tick already elapsed, so the
+ * view can interpolate between ticks. The tick rate is therefore independent
+ * of the frame rate, and a slow frame never changes the game speed; only when
+ * more than {@link #MAX_TICKS_PER_FRAME} ticks are due is the backlog dropped.
+ *
+ * {@link #runHeadless} drives the same simulation on the calling thread with
+ * no timer or rendering, at any tick length down to zero (unpaced).
+ */
+public class SnakeLoop {
+    public static final int MAX_TICKS_PER_FRAME = 100_000;
+
+    private static final int FRAME_MILLIS = 16;
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    /** The state advanced by the loop. */
+    public interface Simulation {
+        void tick();
+
+        boolean isOver();
+    }
+
+    private final Simulation simulation;
+    private final Runnable render;
+    private final Timer timer;
+    private long tickNanos;
+    private long accumulated;
+    private long lastFrame;
+    private GameMetrics metrics;
+
+    /** {@code render} is called on the EDT after each frame's ticks. */
+    public SnakeLoop(Simulation simulation, Runnable render, long tickNanos) {
+        this.simulation = simulation;
+        this.render = render;
+        setTickNanos(tickNanos);
+        this.timer = new Timer(FRAME_MILLIS, e -> frame());
+        this.timer.setCoalesce(true);
+    }
+
+    public void setTickNanos(long tickNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickNanos must be positive");
+        }
+        this.tickNanos = tickNanos;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /** Times each tick the timer runs into {@code metrics}, or stops timing if null. */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void start() {
+        accumulated = 0;
+        lastFrame = System.nanoTime();
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    /** How far into the next tick the current frame is, from 0 to 1. */
+    public double alpha() {
+        return Math.min(1.0, accumulated / (double) tickNanos);
+    }
+
+    private void frame() {
+        long now = System.nanoTime();
+        accumulated += now - lastFrame;
+        lastFrame = now;
+        int ticks = 0;
+        while (accumulated >= tickNanos && !simulation.isOver()) {
+            if (metrics != null) {
+                metrics.tickStarted();
+                simulation.tick();
+                metrics.tickEnded();
+            } else {
+                simulation.tick();
+            }
+            accumulated -= tickNanos;
+            if (++ticks == MAX_TICKS_PER_FRAME) {
+                accumulated = 0;
+                break;
+            }
+        }
+        if (simulation.isOver()) {
+            accumulated = 0;
+            timer.stop();
+        }
+        render.run();
+    }
+
+    /**
+     * Runs up to {@code maxTicks} ticks on the calling thread, one every
+     * {@code tickNanos} (0 for as fast as possible), stopping early when the
+     * simulation ends. Short ticks are paced by spinning, since parking cannot
+     * wait less than tens of microseconds. Returns the number of ticks run.
+     */
+    public static long runHeadless(Simulation simulation, long tickNanos, long maxTicks) {
+        long ticks = 0;
+        long next = System.nanoTime();
+        while (ticks < maxTicks && !simulation.isOver()) {
+            if (tickNanos > 0) {
+                next += tickNanos;
+                long wait;
+                while ((wait = next - System.nanoTime()) > 0) {
+                    if (wait > SPIN_THRESHOLD_NANOS) {
+                        LockSupport.parkNanos(wait - SPIN_THRESHOLD_NANOS);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+            simulation.tick();
+            ticks++;
+        }
+        return ticks;
+    }
+}
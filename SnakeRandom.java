@@ -0,0 +1,32 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 generator (the algorithm behind SplittableRandom) whose whole
+ * state is one long that can be read and restored, so a replay can snapshot
+ * the food sequence mid-game. Not thread-safe.
+ */
+public class SnakeRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SnakeRandom(long seed) {
+        this.state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A Snake game reduced to what is needed to play it again: the board size,
+ * the seed of its {@link SnakeRandom} and every turn the snake took.
+ *
+ * Turns are stored as varints of {@code (tickDelta << 2) | direction}, where
+ * tickDelta counts ticks since the previous turn, so a turn costs one byte
+ * unless the snake ran straight for 32 ticks or more. The file is a 44-byte
+ * little-endian header (magic "SNKR", version, columns, rows, seed, turn
+ * count, final tick, final score, payload length) followed by the payload.
+ */
+public class SnakeRecording {
+    public static final int MAGIC = 0x524B4E53;  // "SNKR" read little-endian
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 44;
+
+    private final int columns;
+    private final int rows;
+    private final long seed;
+    private byte[] data = new byte[64];
+    private int size;
+    private int turns;
+    private long lastTurnTick;
+    private long endTick = -1;
+    private int score;
+
+    public SnakeRecording(int columns, int rows, long seed) {
+        this.columns = columns;
+        this.rows = rows;
+        this.seed = seed;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTurnCount() {
+        return turns;
+    }
+
+    /** Ticks the game ran for, or -1 while it is still being recorded. */
+    public long getEndTick() {
+        return endTick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /** Appends a turn taking effect on the given tick (0-based); ticks must not decrease. */
+    public void turn(long tick, int direction) {
+        long delta = tick - lastTurnTick;
+        if (delta < 0) {
+            throw new IllegalArgumentException("Turns must be recorded in tick order");
+        }
+        lastTurnTick = tick;
+        long v = (delta << 2) | direction;
+        if (size + 10 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((v & ~0x7FL) != 0) {
+            data[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        data[size++] = (byte) v;
+        turns++;
+    }
+
+    public void finish(long ticks, int finalScore) {
+        endTick = ticks;
+        score = finalScore;
+    }
+
+    /** Iterates over the turns in order. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** Position in the turn list; cheap to copy for snapshots. */
+    public final class Cursor {
+        private int offset;
+        private int index;
+        private long tick;
+        private int direction = -1;
+
+        private Cursor() {
+            advance();
+        }
+
+        /** Tick of the next turn, or Long.MAX_VALUE when none are left. */
+        public long tick() {
+            return tick;
+        }
+
+        public int direction() {
+            return direction;
+        }
+
+        public void advance() {
+            if (index == turns) {
+                tick = Long.MAX_VALUE;
+                direction = -1;
+                return;
+            }
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            tick += v >>> 2;
+            direction = (int) (v & 3);
+            index++;
+        }
+
+        public Cursor copy() {
+            return new Cursor(this);
+        }
+
+        private Cursor(Cursor other) {
+            offset = other.offset;
+            index = other.index;
+            tick = other.tick;
+            direction = other.direction;
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).put((byte) VERSION).put((byte) 0).putShort((short) 0)
+                .putInt(columns).putInt(rows).putLong(seed).putInt(turns).putLong(endTick)
+                .putInt(score).putInt(size)
+                .put(data, 0, size);
+        Files.write(path, buffer.array());
+    }
+
+    public static SnakeRecording read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException(path + " is not a Snake recording");
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        buffer.position(8);
+        SnakeRecording recording = new SnakeRecording(buffer.getInt(), buffer.getInt(), buffer.getLong());
+        recording.turns = buffer.getInt();
+        recording.endTick = buffer.getLong();
+        recording.score = buffer.getInt();
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IOException(path + " is truncated");
+        }
+        recording.data = new byte[Math.max(64, size)];
+        buffer.get(recording.data, 0, size);
+        recording.size = size;
+        return recording;
+    }
+}
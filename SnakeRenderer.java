@@ -0,0 +1,312 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the Snake board incrementally. The grid is rendered once into a
+ * background image, and a second board image holds the grid plus every body
+ * segment except the head; each tick only repaints the tiles it changed into
+ * that image. Segment and food tiles are pre-rendered sprites. A frame blits
+ * the board image under the clip and overlays the food, the interpolated head
+ * and the interpolated dropped tail, so together with the dirty rectangle
+ * collected by {@link #markDirty(int)} its cost depends on what moved, not on
+ * the board size or the snake's length.
+ *
+ * A world bigger than the view is drawn through a camera centred on the
+ * interpolated head instead. Nothing is cached per cell: each frame blits a
+ * view-sized grid image and draws only the body cells inside the view, read
+ * 64 at a time with {@link SnakeBody#rowBits}, so the cost follows the view
+ * size and the visible part of the snake, not the world size.
+ */
+public class SnakeRenderer {
+    private static final Font STATUS_FONT = new Font("Arial", Font.PLAIN, 16);
+    private static final Color SNAKE_COLOR = Color.green;
+    private static final Color FOOD_COLOR = Color.red;
+    private static final Color OUTSIDE_COLOR = Color.darkGray;
+
+    private final int columns;
+    private final int rows;
+    private final int tileSize;
+    private final SnakeBody snake;
+    private final Rectangle statusBounds;
+    private final int viewWidth;
+    private final int viewHeight;
+    private final boolean scrolling;
+    private final Rectangle dirty = new Rectangle();
+    private final Rectangle scratch = new Rectangle();
+
+    private GraphicsConfiguration config;
+    private Image background;
+    private Image board;
+    private Image segmentSprite;
+    private Image foodSprite;
+    private Image gridImage;
+
+    /** Draws the whole board, or scrolls through it if it is larger than the view. */
+    public SnakeRenderer(int columns, int rows, int tileSize, SnakeBody snake, int viewWidth, int viewHeight) {
+        this.columns = columns;
+        this.rows = rows;
+        this.tileSize = tileSize;
+        this.snake = snake;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.scrolling = (long) columns * tileSize > viewWidth || (long) rows * tileSize > viewHeight;
+        this.statusBounds = new Rectangle(0, 0, scrolling ? viewWidth : 240, tileSize + 8);
+    }
+
+    public boolean isScrolling() {
+        return scrolling;
+    }
+
+    /** Drops every cached image; they are rebuilt if the renderer paints again. */
+    public void release() {
+        for (Image image : new Image[] {background, board, segmentSprite, foodSprite, gridImage}) {
+            if (image != null) {
+                image.flush();
+            }
+        }
+        background = null;
+        board = null;
+        segmentSprite = null;
+        foodSprite = null;
+        gridImage = null;
+    }
+
+    /** Rebuilds the board image from the snake on the next paint. */
+    public void invalidate() {
+        board = null;
+        dirty.setBounds(0, 0, scrolling ? viewWidth : columns * tileSize, scrolling ? viewHeight : rows * tileSize);
+    }
+
+    /**
+     * Updates the board image after a tick: the old head becomes a body
+     * segment and the removed tail cell (or -1) is cleared back to the grid.
+     */
+    public void moved(int oldHead, int removedTail) {
+        if (board != null) {
+            Graphics g = board.getGraphics();
+            drawTile(g, segmentSprite, oldHead);
+            if (removedTail >= 0) {
+                clearTile(g, removedTail);
+            }
+            g.dispose();
+        }
+        markDirty(oldHead);
+        markDirty(removedTail);
+    }
+
+    /** Adds a cell (ignored if negative) to the region the next repaint covers. */
+    public void markDirty(int cell) {
+        if (scrolling) {
+            // The camera moves with the head, so every frame redraws the view
+            dirty.setBounds(0, 0, viewWidth, viewHeight);
+        } else if (cell >= 0) {
+            addDirty(tileBounds(cell, scratch));
+        }
+    }
+
+    public void markStatusDirty() {
+        addDirty(statusBounds);
+    }
+
+    /** Copies the pending dirty region into {@code out} and clears it; {@code out} is empty if nothing changed. */
+    public Rectangle takeDirty(Rectangle out) {
+        out.setBounds(dirty);
+        dirty.setBounds(0, 0, 0, 0);
+        return out;
+    }
+
+    private void addDirty(Rectangle r) {
+        if (dirty.isEmpty()) {
+            dirty.setBounds(r);
+        } else {
+            dirty.add(r);
+        }
+    }
+
+    /**
+     * Paints a frame. The head is drawn {@code alpha} of the way from
+     * {@code lastHead} to the current head, and the dropped tail (or -1)
+     * likewise slides into the current tail.
+     */
+    public void paint(Graphics g, Component target, int food, int lastHead, int lastTail, double alpha,
+                      String status, Color statusColor) {
+        if (scrolling) {
+            paintScrolling(g, target, food, lastHead, lastTail, alpha);
+        } else {
+            ensureCaches(target);
+            g.drawImage(board, 0, 0, null);
+            if (food >= 0) {
+                drawTile(g, foodSprite, food);
+            }
+            if (lastTail >= 0) {
+                drawBetween(g, lastTail, snake.tail(), alpha, 0, 0);
+            }
+            drawBetween(g, lastHead, snake.head(), alpha, 0, 0);
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null || clip.intersects(statusBounds)) {
+            g.setFont(STATUS_FONT);
+            g.setColor(statusColor);
+            g.drawString(status, tileSize - 16, tileSize);
+        }
+    }
+
+    private void paintScrolling(Graphics g, Component target, int food, int lastHead, int lastTail, double alpha) {
+        ensureScrollingCaches(target);
+        int head = snake.head();
+        double headX = lerp(lastHead % columns, head % columns, alpha) * tileSize + tileSize / 2.0;
+        double headY = lerp(lastHead / columns, head / columns, alpha) * tileSize + tileSize / 2.0;
+        int cameraX = camera(headX, columns, viewWidth);
+        int cameraY = camera(headY, rows, viewHeight);
+
+        // Grid, clipped to the world where the view runs past its edge
+        int worldWidth = columns * tileSize;
+        int worldHeight = rows * tileSize;
+        if (cameraX < 0 || cameraY < 0 || worldWidth - cameraX < viewWidth || worldHeight - cameraY < viewHeight) {
+            g.setColor(OUTSIDE_COLOR);
+            g.fillRect(0, 0, viewWidth, viewHeight);
+        }
+        Graphics grid = g.create();
+        grid.clipRect(-cameraX, -cameraY, worldWidth, worldHeight);
+        grid.drawImage(gridImage, -Math.floorMod(cameraX, tileSize), -Math.floorMod(cameraY, tileSize), null);
+        grid.dispose();
+
+        // Body cells in view, 64 per lookup; the head is drawn interpolated below
+        int x0 = Math.max(0, Math.floorDiv(cameraX, tileSize));
+        int x1 = Math.min(columns, Math.floorDiv(cameraX + viewWidth, tileSize) + 1);
+        int y0 = Math.max(0, Math.floorDiv(cameraY, tileSize));
+        int y1 = Math.min(rows, Math.floorDiv(cameraY + viewHeight, tileSize) + 1);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x += 64) {
+                long bits = snake.rowBits(x, y);
+                if (x1 - x < 64) {
+                    bits &= (1L << (x1 - x)) - 1;
+                }
+                while (bits != 0) {
+                    int cx = x + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (y * columns + cx != head) {
+                        g.drawImage(segmentSprite, cx * tileSize - cameraX, y * tileSize - cameraY, null);
+                    }
+                }
+            }
+        }
+        if (food >= 0) {
+            g.drawImage(foodSprite, food % columns * tileSize - cameraX, food / columns * tileSize - cameraY, null);
+        }
+        if (lastTail >= 0) {
+            drawBetween(g, lastTail, snake.tail(), alpha, cameraX, cameraY);
+        }
+        drawBetween(g, lastHead, head, alpha, cameraX, cameraY);
+    }
+
+    // Left or top edge of the view centred on centre, kept inside the world (or centring a world smaller than it)
+    private int camera(double centre, int cells, int view) {
+        int world = cells * tileSize;
+        if (world <= view) {
+            return (world - view) / 2;
+        }
+        return (int) Math.max(0, Math.min(world - view, Math.round(centre - view / 2.0)));
+    }
+
+    private static double lerp(int a, int b, double alpha) {
+        return a + (b - a) * alpha;
+    }
+
+    private void drawBetween(Graphics g, int a, int b, double alpha, int cameraX, int cameraY) {
+        double x = lerp(a % columns, b % columns, alpha);
+        double y = lerp(a / columns, b / columns, alpha);
+        g.drawImage(segmentSprite, (int) Math.round(x * tileSize) - cameraX,
+                (int) Math.round(y * tileSize) - cameraY, null);
+    }
+
+    private void drawTile(Graphics g, Image sprite, int cell) {
+        g.drawImage(sprite, (cell % columns) * tileSize, (cell / columns) * tileSize, null);
+    }
+
+    private void clearTile(Graphics g, int cell) {
+        Rectangle r = tileBounds(cell, scratch);
+        g.drawImage(background, r.x, r.y, r.x + r.width, r.y + r.height,
+                r.x, r.y, r.x + r.width, r.y + r.height, null);
+    }
+
+    private Rectangle tileBounds(int cell, Rectangle out) {
+        out.setBounds((cell % columns) * tileSize, (cell / columns) * tileSize, tileSize, tileSize);
+        return out;
+    }
+
+    private void ensureCaches(Component target) {
+        GraphicsConfiguration gc = target.getGraphicsConfiguration();
+        if (background == null || gc != config) {
+            config = gc;
+            int width = columns * tileSize;
+            int height = rows * tileSize;
+            background = createImage(width, height, Transparency.OPAQUE);
+            Graphics bg = background.getGraphics();
+            bg.setColor(target.getBackground());
+            bg.fillRect(0, 0, width, height);
+            bg.setColor(target.getForeground());
+            for (int x = 0; x < columns; x++) {
+                bg.drawLine(x * tileSize, 0, x * tileSize, height);
+            }
+            for (int y = 0; y < rows; y++) {
+                bg.drawLine(0, y * tileSize, width, y * tileSize);
+            }
+            bg.dispose();
+            segmentSprite = createSprite(SNAKE_COLOR);
+            foodSprite = createSprite(FOOD_COLOR);
+            board = null;
+        }
+        if (board == null) {
+            board = createImage(columns * tileSize, rows * tileSize, Transparency.OPAQUE);
+            Graphics g = board.getGraphics();
+            g.drawImage(background, 0, 0, null);
+            for (int i = 1; i < snake.length(); i++) {
+                drawTile(g, segmentSprite, snake.get(i));
+            }
+            g.dispose();
+        }
+    }
+
+    private void ensureScrollingCaches(Component target) {
+        GraphicsConfiguration gc = target.getGraphicsConfiguration();
+        if (gridImage != null && gc == config) {
+            return;
+        }
+        config = gc;
+        int width = viewWidth + tileSize;
+        int height = viewHeight + tileSize;
+        gridImage = createImage(width, height, Transparency.OPAQUE);
+        Graphics g = gridImage.getGraphics();
+        g.setColor(target.getBackground());
+        g.fillRect(0, 0, width, height);
+        g.setColor(target.getForeground());
+        for (int x = 0; x < width; x += tileSize) {
+            g.drawLine(x, 0, x, height);
+        }
+        for (int y = 0; y < height; y += tileSize) {
+            g.drawLine(0, y, width, y);
+        }
+        g.dispose();
+        segmentSprite = createSprite(SNAKE_COLOR);
+        foodSprite = createSprite(FOOD_COLOR);
+    }
+
+    private Image createSprite(Color color) {
+        Image sprite = createImage(tileSize, tileSize, Transparency.OPAQUE);
+        Graphics g = sprite.getGraphics();
+        g.setColor(color);
+        g.fill3DRect(0, 0, tileSize, tileSize, true);
+        g.dispose();
+        return sprite;
+    }
+
+    private Image createImage(int w, int h, int transparency) {
+        if (config != null) {
+            return config.createCompatibleImage(w, h, transparency);
+        }
+        return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a {@link SnakeRecording} back on an engine by feeding it the recorded
+ * turns on their ticks. The engine draws food from a {@link SnakeRandom} with
+ * the recorded seed, so the game unfolds exactly as it was played.
+ *
+ * Every {@link #SNAPSHOT_INTERVAL} ticks the replay keeps a snapshot of the
+ * engine, the generator state and its place in the turn list. Seeking restores
+ * the nearest snapshot at or before the target and re-simulates the rest, so
+ * jumping back never replays from the start; seeking past the furthest
+ * snapshot simulates forward, taking snapshots on the way. Snapshots hold the
+ * body but not the free-cell index, which the engine rebuilds from the body.
+ * Once there are {@link #MAX_SNAPSHOTS}, every other one is dropped and the
+ * interval doubles, so a long replay keeps a bounded number.
+ *
+ * <pre>
+ * java SnakeReplay &lt;file&gt;
+ * </pre>
+ * re-simulates a recording headless at full speed and checks it ends as recorded.
+ */
+public class SnakeReplay implements SnakeEngine.Controller, SnakeLoop.Simulation {
+    public static final int SNAPSHOT_INTERVAL = SnakeEngine.REINDEX_INTERVAL;
+    public static final int MAX_SNAPSHOTS = 256;
+
+    private static final class Snapshot {
+        final SnakeEngine.Snapshot engine;
+        final long randomState;
+        final SnakeRecording.Cursor cursor;
+
+        Snapshot(SnakeEngine.Snapshot engine, long randomState, SnakeRecording.Cursor cursor) {
+            this.engine = engine;
+            this.randomState = randomState;
+            this.cursor = cursor;
+        }
+    }
+
+    private final SnakeRecording recording;
+    private final SnakeEngine engine;
+    private final SnakeRandom random;
+    private final List<Snapshot> snapshots = new ArrayList<>();
+    private long interval = SNAPSHOT_INTERVAL;
+    private SnakeRecording.Cursor cursor;
+
+    /**
+     * Takes over {@code engine}, which must match the recording's board size:
+     * it is reset to the recorded start, stops recording and is steered by
+     * this replay until another controller is set.
+     */
+    public SnakeReplay(SnakeRecording recording, SnakeEngine engine) {
+        if (engine.getColumns() != recording.getColumns() || engine.getRows() != recording.getRows()) {
+            throw new IllegalArgumentException("Recording is for a " + recording.getColumns() + " x "
+                    + recording.getRows() + " board");
+        }
+        this.recording = recording;
+        this.engine = engine;
+        this.random = new SnakeRandom(recording.getSeed());
+        this.cursor = recording.cursor();
+        engine.setRecording(null);
+        engine.setReplayable(true);
+        engine.reset(random);
+        engine.setController(this);
+    }
+
+    public SnakeRecording getRecording() {
+        return recording;
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    public int steer(SnakeEngine engine) {
+        if (cursor.tick() != engine.getTicks()) {
+            return -1;
+        }
+        int direction = cursor.direction();
+        cursor.advance();
+        return direction;
+    }
+
+    /** Plays one tick, keeping a snapshot when one is due. */
+    @Override
+    public void tick() {
+        long ticks = engine.getTicks();
+        if (ticks % interval == 0 && ticks / interval == snapshots.size()) {
+            snapshots.add(new Snapshot(engine.snapshot(), random.getState(), cursor.copy()));
+            if (snapshots.size() > MAX_SNAPSHOTS) {
+                thinSnapshots();
+            }
+        }
+        engine.tick();
+    }
+
+    // Keeps the snapshots on even multiples of the interval, then doubles it
+    private void thinSnapshots() {
+        int kept = 0;
+        for (int i = 0; i < snapshots.size(); i += 2) {
+            snapshots.set(kept++, snapshots.get(i));
+        }
+        snapshots.subList(kept, snapshots.size()).clear();
+        interval *= 2;
+    }
+
+    @Override
+    public boolean isOver() {
+        return engine.isOver();
+    }
+
+    /** Runs up to {@code ticks} ticks at full speed; returns how many ran. */
+    public long fastForward(long ticks) {
+        long ran = 0;
+        while (ran < ticks && !engine.isOver()) {
+            tick();
+            ran++;
+        }
+        return ran;
+    }
+
+    /** Moves the game to the start of the given tick, or to its end if it finishes sooner. */
+    public void seek(long tick) {
+        tick = Math.max(0, tick);
+        int index = (int) Math.min(tick / interval, snapshots.size() - 1);
+        if (index >= 0) {
+            // Restore when going back, or when the snapshot skips ahead of where we are
+            Snapshot snapshot = snapshots.get(index);
+            if (tick < engine.getTicks() || snapshot.engine.getTicks() > engine.getTicks()) {
+                engine.restore(snapshot.engine);
+                random.setState(snapshot.randomState);
+                cursor = snapshot.cursor.copy();
+            }
+        }
+        fastForward(tick - engine.getTicks());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java SnakeReplay <file>");
+            System.exit(2);
+        }
+        SnakeRecording recording = SnakeRecording.read(Paths.get(args[0]));
+        SnakeEngine engine = new SnakeEngine(recording.getColumns(), recording.getRows(), new SnakeRandom(0));
+        SnakeReplay replay = new SnakeReplay(recording, engine);
+        long start = System.nanoTime();
+        long ticks = replay.fastForward(Long.MAX_VALUE);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Replayed %,d turns over %,d ticks in %.3f s: %,.0f ticks/s, score %d%n",
+                recording.getTurnCount(), ticks, seconds, ticks / seconds, engine.getScore());
+        if (recording.getEndTick() >= 0
+                && (ticks != recording.getEndTick() || engine.getScore() != recording.getScore())) {
+            System.err.println("Replay diverged: recorded " + recording.getEndTick() + " ticks, score "
+                    + recording.getScore());
+            System.exit(1);
+        }
+    }
+}
@@ -1,45 +1,251 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Stack;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Paths;
 
-public class TowerOfHanoiGame extends JFrame {
+public class TowerOfHanoiGame extends JFrame implements GameLifecycle.Managed {
     private int numDisks = 3;
-    private int moves = 0;
-    private Stack<Integer>[] rods;
+    private int numRods = 3;
+    private HanoiRules rules = HanoiVariant.CLASSIC;
+    private long moves = 0;
+    private HanoiBoard board = new HanoiBoard(numRods, numDisks);
     private JLabel moveCounter;
+    private JSlider scrubber;
+    private JTextField moveInput;
+    private JLabel hintLabel;
+    private boolean updatingScrubber = false;
+    private static final int SCRUBBER_STEPS = 1_000_000;
+    // Largest tower the seek and replay solvers can index with a long move number
+    private static final int MAX_DISKS = HanoiMoveGenerator.MAX_DISKS;
     private int dragFromRod = -1;
     private int draggingDisk = -1;
     private int mouseX, mouseY;
     private boolean isDragging = false;
     private boolean isSolving = false;  // For automatic solution
+    private HanoiPlayback playback;
+    private boolean resumePlayback;
+    private GamePanel gamePanel;
+    private JButton pauseButton;
+    private JSlider speedSlider;
+    private HanoiJournal journal;
+    private static final String JOURNAL_FILE = ".hanoi-session.journal";
+    // How often a running solution checkpoints, so a crash loses at most this much of it
+    private static final long PLAYBACK_CHECKPOINT_NANOS = 1_000_000_000L;
+    private long lastCheckpoint;
+    private boolean released;
+    private static final int OVERLAY_MARGIN = 10;
+    private final GameMetrics metrics = GameMetrics.forGame("Hanoi");
 
     public TowerOfHanoiGame() {
         setTitle("Tower of Hanoi Game");
         setSize(1000,700);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing only this window; the launcher may be open too
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        GamePanel gamePanel = new GamePanel();
+        openJournal();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                release();
+            }
+        });
+
+        gamePanel = new GamePanel();
         setContentPane(gamePanel);
         setVisible(true);
     }
 
+    // Resumes the previous session from the journal file in the user's home when there is
+    // one; a second window finds the file locked and keeps its history in memory
+    private void openJournal() {
+        try {
+            journal = HanoiJournal.open(Paths.get(System.getProperty("user.home"), JOURNAL_FILE), board);
+            if (journal == null) {
+                journal = new HanoiJournal(HanoiJournal.DEFAULT_CAPACITY);
+                journal.reset(board, 0);
+                return;
+            }
+            board = journal.getBoard();
+            numRods = board.getNumRods();
+            numDisks = board.getNumDisks();
+            rules = journal.getVariant();
+            moves = journal.getMoveCount();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            journal = new HanoiJournal(HanoiJournal.DEFAULT_CAPACITY);
+            journal.reset(board, 0);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journal = null;
+    }
+
+    @Override
+    public Window getWindow() {
+        return this;
+    }
+
+    @Override
+    public void suspend() {
+        resumePlayback = playback != null && !playback.isPaused();
+        if (resumePlayback) {
+            playback.pause();
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (resumePlayback) {
+            resumePlayback = false;
+            if (playback != null) {
+                playback.resume();
+            }
+        }
+    }
+
+    @Override
+    public void relaunch() {
+        // The session carries on where it was left
+        resume();
+    }
+
+    // Reached from the lifecycle and again from windowClosed when it disposes the window
+    @Override
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        stopPlayback();
+        closeJournal();
+        gamePanel.renderer.release();
+    }
+
     private void initializeGame() {
-        rods = new Stack[3];
-        for (int i = 0; i < 3; i++) rods[i] = new Stack<>();
-        for (int i = numDisks; i > 0; i--) rods[0].push(i);
+        if (board.getNumRods() != numRods) {
+            board = new HanoiBoard(numRods, numDisks);
+        }
+        board.reset(numDisks);
         moves = 0;
+        if (journal != null) {
+            journal.reset(board, 0);
+        }
         dragFromRod = -1;
         draggingDisk = -1;
         isDragging = false;
-        isSolving = false;
+        stopPlayback();
+        refreshStatus();
+    }
+
+    private void refreshStatus() {
+        if (scrubber != null) {
+            // Seeking and hints rely on the 3-rod closed forms
+            scrubber.setEnabled(usesClosedForms());
+            moveInput.setEnabled(usesClosedForms());
+            moveCounter.setText("Moves: " + moves);
+            syncScrubber();
+            updateHint();
+        }
         repaint();
     }
 
+    // Undo and redo replay history and are exempt from the rules; under CYCLIC an undo
+    // moves a disk counter-clockwise
+    private void undoMove() {
+        if (isSolving || isDragging || journal == null || journal.undo(board) < 0) {
+            return;
+        }
+        moves = journal.getMoveCount();
+        refreshStatus();
+    }
+
+    private void redoMove() {
+        if (isSolving || isDragging || journal == null || journal.redo(board) < 0) {
+            return;
+        }
+        moves = journal.getMoveCount();
+        refreshStatus();
+    }
+
+    // Maps the slider's int range onto the (possibly 2^63) move range
+    private long scrubberToMove(int value) {
+        long total = (1L << numDisks) - 1;
+        return (long) ((double) value / SCRUBBER_STEPS * total);
+    }
+
+    private void stopPlayback() {
+        if (playback != null) {
+            playback.cancel();
+            playback = null;
+            if (journal != null) {
+                journal.reset(board, moves);
+            }
+        }
+        isSolving = false;
+        if (pauseButton != null) {
+            pauseButton.setText("Pause");
+        }
+    }
+
+    // Slider positions 0-70 map logarithmically onto 1 to 10^7 moves per second
+    private static double speedToRate(int value) {
+        return Math.pow(10, value / 10.0);
+    }
+
+    // Seeking, hints and mid-game solving exist for classic 3-rod rules only
+    private boolean usesClosedForms() {
+        return numRods == 3 && rules == HanoiVariant.CLASSIC;
+    }
+
+    private int targetRod() {
+        return numRods - 1;
+    }
+
+    private void updateHint() {
+        if (!usesClosedForms()) {
+            hintLabel.setText("Optimal solution: " + rules.minMoves(numDisks, numRods) + " moves");
+            return;
+        }
+        int move = HanoiPositionSolver.nextMove(board, 2);
+        if (move < 0) {
+            hintLabel.setText(" ");
+            return;
+        }
+        hintLabel.setText("Hint: rod " + (HanoiPositionSolver.moveFrom(move) + 1) + " \u2192 rod "
+                + (HanoiPositionSolver.moveTo(move) + 1) + "  (" + Long.toUnsignedString(HanoiPositionSolver.distance(board, 2))
+                + " moves left)");
+    }
+
+    private void syncScrubber() {
+        if (!usesClosedForms()) {
+            return;
+        }
+        long total = (1L << numDisks) - 1;
+        long k = HanoiSolution.moveNumberOf(board, 0, 2, 1);
+        updatingScrubber = true;
+        scrubber.setValue(k < 0 || total == 0 ? 0 : (int) ((double) k / total * SCRUBBER_STEPS));
+        updatingScrubber = false;
+    }
+
+    @SuppressWarnings("serial")
     private class GamePanel extends JPanel {
         private JTextField numDisksInput;
+        private JTextField numRodsInput;
+        private JComboBox<HanoiVariant> variantInput;
+        private final HanoiRenderer renderer = new HanoiRenderer(new Color(240, 248, 255));
+        private final Rectangle dragDirty = new Rectangle();
+        private final Rectangle dragBounds = new Rectangle();
 
         public GamePanel() {
             setLayout(null);
@@ -55,19 +261,37 @@ public class TowerOfHanoiGame extends JFrame {
             label.setFont(new Font("Serif", Font.PLAIN, 18));
             add(label);
 
-            numDisksInput = new JTextField("3");
+            numDisksInput = new JTextField(String.valueOf(numDisks));
             numDisksInput.setBounds(560, 100, 50, 30);
             numDisksInput.setFont(new Font("Serif", Font.PLAIN, 16));
             add(numDisksInput);
 
-            numDisksInput.addKeyListener(new KeyAdapter() {
+            JLabel rodsLabel = new JLabel("Rods:");
+            rodsLabel.setBounds(630, 100, 50, 30);
+            rodsLabel.setFont(new Font("Serif", Font.PLAIN, 18));
+            add(rodsLabel);
+
+            numRodsInput = new JTextField(String.valueOf(numRods));
+            numRodsInput.setBounds(680, 100, 50, 30);
+            numRodsInput.setFont(new Font("Serif", Font.PLAIN, 16));
+            add(numRodsInput);
+
+            variantInput = new JComboBox<>(HanoiVariant.values());
+            variantInput.setSelectedItem(rules);
+            variantInput.setBounds(745, 100, 130, 30);
+            variantInput.addActionListener(e -> onResetButtonClicked());
+            add(variantInput);
+
+            KeyAdapter enterToReset = new KeyAdapter() {
                 @Override
                 public void keyPressed(KeyEvent e) {
                     if (e.getKeyCode() == KeyEvent.VK_ENTER) {
                         onResetButtonClicked();
                     }
                 }
-            });
+            };
+            numDisksInput.addKeyListener(enterToReset);
+            numRodsInput.addKeyListener(enterToReset);
 
             JButton resetButton = new JButton("Reset");
             resetButton.setBounds(170, 150, 100, 30);
@@ -81,6 +305,16 @@ public class TowerOfHanoiGame extends JFrame {
             solveButton.addActionListener(e -> startSolving());
             add(solveButton);
 
+            pauseButton = new JButton("Pause");
+            pauseButton.setBounds(460, 150, 100, 30);
+            pauseButton.addActionListener(e -> togglePause());
+            add(pauseButton);
+
+            JButton stepButton = new JButton("Step");
+            stepButton.setBounds(570, 150, 100, 30);
+            stepButton.addActionListener(e -> stepSolving());
+            add(stepButton);
+
             JButton instructionsButton = new JButton("Instructions");
             instructionsButton.setBounds(690, 150, 150, 30);
             instructionsButton.addActionListener(e -> showInstructions());
@@ -91,33 +325,121 @@ public class TowerOfHanoiGame extends JFrame {
             moveCounter.setBounds(470, 550, 200, 30);
             add(moveCounter);
 
-            initializeGame();
+            scrubber = new JSlider(0, SCRUBBER_STEPS, 0);
+            scrubber.setBounds(250, 590, 500, 30);
+            scrubber.setOpaque(false);
+            scrubber.addChangeListener(e -> {
+                if (!updatingScrubber) {
+                    seekTo(scrubberToMove(scrubber.getValue()));
+                }
+            });
+            add(scrubber);
+
+            // The slider only hits every few moves above about 20 disks; this is exact
+            JLabel moveInputLabel = new JLabel("Go to move:");
+            moveInputLabel.setBounds(760, 590, 80, 30);
+            add(moveInputLabel);
+
+            moveInput = new JTextField();
+            moveInput.setBounds(840, 590, 120, 30);
+            moveInput.addActionListener(e -> goToMove());
+            add(moveInput);
+
+            JLabel speedLabel = new JLabel("Speed: 1 move/s");
+            speedLabel.setBounds(250, 625, 150, 30);
+            add(speedLabel);
+
+            speedSlider = new JSlider(0, 70, 0);
+            speedSlider.setBounds(400, 625, 350, 30);
+            speedSlider.setOpaque(false);
+            speedSlider.addChangeListener(e -> {
+                double rate = speedToRate(speedSlider.getValue());
+                speedLabel.setText(String.format("Speed: %,.0f moves/s", rate));
+                if (playback != null) {
+                    playback.setMovesPerSecond(rate);
+                }
+            });
+            add(speedSlider);
+
+            hintLabel = new JLabel(" ", JLabel.CENTER);
+            hintLabel.setFont(new Font("Serif", Font.ITALIC, 16));
+            hintLabel.setBounds(250, 200, 500, 25);
+            add(hintLabel);
+
+            JButton undoButton = new JButton("Undo");
+            undoButton.setBounds(170, 550, 100, 30);
+            undoButton.addActionListener(e -> undoMove());
+            add(undoButton);
+
+            JButton redoButton = new JButton("Redo");
+            redoButton.setBounds(280, 550, 100, 30);
+            redoButton.addActionListener(e -> redoMove());
+            add(redoButton);
+
+            InputMap keys = getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+            keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+            keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+            keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "metrics");
+            getActionMap().put("undo", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    undoMove();
+                }
+            });
+            getActionMap().put("redo", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    redoMove();
+                }
+            });
+            getActionMap().put("metrics", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    metrics.setEnabled(!metrics.isEnabled());
+                    repaint();
+                }
+            });
+
+            if (moves > 0 || board.size(0) != numDisks) {
+                refreshStatus();
+            } else {
+                initializeGame();
+            }
 
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mousePressed(MouseEvent e) {
+                    metrics.inputReceived();
                     if (isSolving) return;
 
                     int rodIndex = getRodIndex(e.getX());
-                    if (rodIndex != -1 && !rods[rodIndex].isEmpty()) {
+                    if (rodIndex != -1 && !board.isEmpty(rodIndex)) {
                         dragFromRod = rodIndex;
-                        draggingDisk = rods[rodIndex].peek();
+                        draggingDisk = board.topDisk(rodIndex);
                         if (draggingDisk != -1) {
                             isDragging = true;
                             mouseX = e.getX();
                             mouseY = e.getY();
+                            // Lift the disk: clear its slot on the rod and draw it under the pointer
+                            renderer.topDiskBounds(board, rodIndex, dragDirty);
+                            dragDirty.add(renderer.diskBounds(mouseX, mouseY, draggingDisk, dragBounds));
+                            repaint(dragDirty.x, dragDirty.y, dragDirty.width + 1, dragDirty.height + 1);
                         }
                     }
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
+                    metrics.inputReceived();
                     if (isDragging && dragFromRod != -1 && draggingDisk != -1) {
                         int rodIndex = getRodIndex(e.getX());
-                        if (rodIndex != -1 && isValidMove(dragFromRod, rodIndex)) {
-                            rods[rodIndex].push(rods[dragFromRod].pop());
+                        if (rodIndex != -1 && rules.isValidMove(board, dragFromRod, rodIndex)) {
+                            board.move(dragFromRod, rodIndex);
+                            journal.record(dragFromRod, rodIndex);
                             moves++;
                             moveCounter.setText("Moves: " + moves);
+                            syncScrubber();
+                            updateHint();
                             checkWin();
                         }
                         draggingDisk = -1;
@@ -132,9 +454,13 @@ public class TowerOfHanoiGame extends JFrame {
                 @Override
                 public void mouseDragged(MouseEvent e) {
                     if (isDragging) {
+                        metrics.inputReceived();
+                        // Repaint only where the dragged disk was and where it is now
+                        renderer.diskBounds(mouseX, mouseY, draggingDisk, dragDirty);
                         mouseX = e.getX();
                         mouseY = e.getY();
-                        repaint();
+                        dragDirty.add(renderer.diskBounds(mouseX, mouseY, draggingDisk, dragBounds));
+                        repaint(dragDirty.x, dragDirty.y, dragDirty.width + 1, dragDirty.height + 1);
                     }
                 }
             });
@@ -162,7 +488,8 @@ public class TowerOfHanoiGame extends JFrame {
 
             homeButton.addActionListener(e -> {
                 winDialog.dispose();
-                TowerOfHanoiGame.this.dispose(); // Close the game window
+                // Close the game window as the title bar would
+                dispatchEvent(new WindowEvent(TowerOfHanoiGame.this, WindowEvent.WINDOW_CLOSING));
             });
 
             buttonPanel.add(continueButton);
@@ -175,11 +502,29 @@ public class TowerOfHanoiGame extends JFrame {
 
         private void onResetButtonClicked() {
             try {
-                numDisks = Integer.parseInt(numDisksInput.getText());
-                if (numDisks < 3 || numDisks > 8) {
-                    JOptionPane.showMessageDialog(this, "Please enter a valid number of disks (3-8).");
+                int disks = Integer.parseInt(numDisksInput.getText());
+                int rods = Integer.parseInt(numRodsInput.getText());
+                if (disks < 3 || disks > MAX_DISKS) {
+                    JOptionPane.showMessageDialog(this, "Please enter a valid number of disks (3-" + MAX_DISKS + ").");
+                    return;
+                }
+                if (rods < 3 || rods > 6) {
+                    JOptionPane.showMessageDialog(this, "Please enter a valid number of rods (3-6).");
+                    return;
+                }
+                HanoiVariant variant = (HanoiVariant) variantInput.getSelectedItem();
+                if (!variant.supportsRods(rods)) {
+                    JOptionPane.showMessageDialog(this, variant + " rules are played on 3 rods.");
+                    return;
+                }
+                if (disks > variant.maxDisks(rods)) {
+                    JOptionPane.showMessageDialog(this, variant + " rules support at most " + variant.maxDisks(rods) + " disks.");
                     return;
                 }
+                numDisks = disks;
+                numRods = rods;
+                rules = variant;
+                journal.setVariant(variant);
                 initializeGame();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Please enter a valid number.");
@@ -197,6 +542,14 @@ public class TowerOfHanoiGame extends JFrame {
                     - Click and drag the top disk to another rod.
                     - Press 'Reset' to start over.
                     - Press 'Solve' to see the automatic solution.
+                    - Pick a rule variant next to the rod count: Cyclic only moves a disk one
+                      rod to the right (wrapping around) and Adjacent only forbids jumping
+                      between the outer rods. Undo rewinds the history, so under Cyclic it moves
+                      a disk back to the left even though a move may not.
+                    - 'Pause' and 'Step' control the solution; the sliders seek and set its speed.
+                      The seek slider is approximate above about 20 disks; type a number in
+                      'Go to move' and press Enter to jump to that exact move.
+                    - F3 shows frame timings.
                     
                     Good luck!
                     """;
@@ -204,90 +557,137 @@ public class TowerOfHanoiGame extends JFrame {
         }
 
         private int getRodIndex(int x) {
-            int rodIndex = (x - 200) / 200;
-            return (rodIndex >= 0 && rodIndex < 3) ? rodIndex : -1;
-        }
-
-        private boolean isValidMove(int from, int to) {
-            return to != from && (rods[to].isEmpty() || rods[from].peek() < rods[to].peek());
+            return renderer.rodAt(x);
         }
 
         private void checkWin() {
-            if (rods[2].size() == numDisks) {
+            if (board.isSolved(targetRod())) {
                 showWinDialog();
             }
         }
 
+        private void seekTo(long k) {
+            stopPlayback();
+            HanoiSolution.seek(board, k, 0, 2, 1);
+            moves = k;
+            journal.reset(board, moves);
+            moveCounter.setText("Moves: " + k);
+            updateHint();
+            repaint();
+        }
+
+        private void goToMove() {
+            long total = (1L << numDisks) - 1;
+            try {
+                long k = Long.parseLong(moveInput.getText().trim());
+                if (k < 0 || k > total) {
+                    JOptionPane.showMessageDialog(this, "Please enter a move between 0 and " + total + ".");
+                    return;
+                }
+                seekTo(k);
+                syncScrubber();
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Please enter a valid number.");
+            }
+        }
+
         private void startSolving() {
+            if (isSolving) {
+                if (playback.isPaused()) {
+                    togglePause();
+                }
+                return;
+            }
+            if (createPlayback()) {
+                playback.start();
+            }
+        }
+
+        // False if the player declined to restart the board
+        private boolean createPlayback() {
+            HanoiMoveSource solver;
+            if (usesClosedForms()) {
+                // Solves from wherever the player left the board
+                solver = new HanoiPositionSolver(board, 2);
+            } else {
+                // Other solvers only cover the canonical start, so restart from it
+                if (board.size(0) != numDisks) {
+                    int answer = JOptionPane.showConfirmDialog(this,
+                            "The solution starts from the first rod. Restart the puzzle and solve it?",
+                            "Solve", JOptionPane.OK_CANCEL_OPTION);
+                    if (answer != JOptionPane.OK_OPTION) {
+                        return false;
+                    }
+                    board.reset(numDisks);
+                    moves = 0;
+                    journal.reset(board, 0);
+                    refreshStatus();
+                }
+                solver = rules.solver(numDisks, numRods);
+            }
             isSolving = true;
-            ArrayList<String> movesList = solveTowerOfHanoi(numDisks, 0, 2, 1);
-            new Thread(() -> {
-                for (String move : movesList) {
-                    if (!isSolving) break;
-                    String[] parts = move.split(",");
-                    int from = Integer.parseInt(parts[0]);
-                    int to = Integer.parseInt(parts[1]);
-
-                    rods[to].push(rods[from].pop());
-                    moves++;
+            lastCheckpoint = System.nanoTime();
+            playback = new HanoiPlayback(board, solver, new HanoiPlayback.Listener() {
+                @Override
+                public void movesApplied(int count) {
+                    moves += count;
+                    long now = System.nanoTime();
+                    if (now - lastCheckpoint >= PLAYBACK_CHECKPOINT_NANOS) {
+                        journal.reset(board, moves);
+                        lastCheckpoint = now;
+                    }
                     moveCounter.setText("Moves: " + moves);
+                    syncScrubber();
+                    updateHint();
                     repaint();
-                    try {
-                        Thread.sleep(1000);  // Pause to visualize the move
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
                 }
-                isSolving = false;
-            }).start();
+
+                @Override
+                public void finished() {
+                    isSolving = false;
+                    playback = null;
+                    journal.reset(board, moves);
+                    pauseButton.setText("Pause");
+                }
+            });
+            playback.setMovesPerSecond(speedToRate(speedSlider.getValue()));
+            playback.setMetrics(metrics);
+            return true;
         }
 
-        private ArrayList<String> solveTowerOfHanoi(int n, int from, int to, int aux) {
-            ArrayList<String> steps = new ArrayList<>();
-            if (n == 1) {
-                steps.add(from + "," + to);
-                return steps;
+        private void togglePause() {
+            if (playback == null) {
+                return;
+            }
+            if (playback.isPaused()) {
+                playback.resume();
+                pauseButton.setText("Pause");
+            } else {
+                playback.pause();
+                pauseButton.setText("Resume");
             }
-            steps.addAll(solveTowerOfHanoi(n - 1, from, aux, to));
-            steps.add(from + "," + to);
-            steps.addAll(solveTowerOfHanoi(n - 1, aux, to, from));
-            return steps;
         }
 
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-
-            int rodWidth = 5;
-            int rodHeight = 250;
-            int xOffset = 300;
-            int yPosition = 500;
-
-            for (int i = 0; i < 3; i++) {
-                int xPosition = (i * 200) + xOffset;
-                g.setColor(Color.DARK_GRAY);
-                g.fillRect(xPosition, yPosition - rodHeight, rodWidth, rodHeight);
-
-                Stack<Integer> rod = rods[i];
-                int diskY = yPosition;
-                for (int disk : rod) {
-                    if (isDragging && i == dragFromRod && disk == draggingDisk) {
-                        continue;
-                    }
-                    drawDisk(g, xPosition, diskY, disk);
-                    diskY -= 25;
+        private void stepSolving() {
+            if (playback == null) {
+                if (!createPlayback()) {
+                    return;
                 }
+                playback.pause();
+                pauseButton.setText("Resume");
+            } else if (!playback.isPaused()) {
+                togglePause();
             }
-
-            if (isDragging && draggingDisk != -1) {
-                drawDisk(g, mouseX, mouseY, draggingDisk);
-            }
+            playback.step();
         }
 
-        private void drawDisk(Graphics g, int x, int y, int diskSize) {
-            int diskWidth = diskSize * 30;
-            g.setColor(new Color(100 + diskSize * 15, 100, 200 - diskSize * 15));
-            g.fillRoundRect(x - diskWidth / 2, y - 10, diskWidth, 20, 10, 10);
+        @Override
+        protected void paintComponent(Graphics g) {
+            metrics.paintStarted();
+            super.paintComponent(g);
+            renderer.paint(g, this, board, isDragging ? draggingDisk : -1, mouseX, mouseY);
+            metrics.paintEnded();
+            metrics.paintOverlay(g, OVERLAY_MARGIN, OVERLAY_MARGIN);
         }
     }
 